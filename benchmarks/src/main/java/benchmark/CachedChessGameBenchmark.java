@@ -0,0 +1,18 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Fork;
+
+import chess.LegalMoveCache;
+
+/**
+ * The {@link ChessGameBenchmark} calls with the shared {@link LegalMoveCache}
+ * on, as the server runs them
+ * <p>
+ * Each benchmark asks about the same position over and over, so after the first
+ * call the move calls here time cache hits. Compare them against
+ * {@link ChessGameBenchmark} to see what a hit saves over generating.
+ */
+// the cache setting has to be given again, otherwise it is inherited
+@Fork(value = 2, jvmArgsAppend = "-D" + LegalMoveCache.CAPACITY_PROPERTY + "=" + LegalMoveCache.DEFAULT_CAPACITY)
+public class CachedChessGameBenchmark extends ChessGameBenchmark {
+}
@@ -0,0 +1,166 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.gson.Gson;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.LegalMoveCache;
+
+/**
+ * Times the public rules engine calls the server and client make, over each
+ * position in {@link Positions}
+ * <p>
+ * The shared {@link LegalMoveCache} is turned off in these forks so every call
+ * generates moves. {@link CachedChessGameBenchmark} times the same calls with
+ * the cache on. The cache counters are printed at the end of each trial.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar} after
+ * {@code mvn package}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-D" + LegalMoveCache.CAPACITY_PROPERTY + "=0")
+@State(Scope.Thread)
+public class ChessGameBenchmark {
+
+    private static final Gson GSON = new Gson();
+    private static final int LINE_PLIES = 16;
+
+    @Param
+    public Positions position;
+
+    private ChessGame game;
+    private ChessGame.TeamColor turn;
+    private List<ChessPosition> ownPieces;
+    // moves played from the position by the makeMove benchmark
+    private ChessMove[] line;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        game = position.newGame();
+        turn = game.getTeamTurn();
+        ownPieces = new ArrayList<>();
+        for (int row = 1; row <= ChessBoard.BOARD_ROWS; row++) {
+            for (int col = 1; col <= ChessBoard.BOARD_COLS; col++) {
+                ChessPosition square = ChessPosition.of(row, col);
+                ChessPiece piece = game.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == turn) {
+                    ownPieces.add(square);
+                }
+            }
+        }
+        ChessGame lineGame = copyOf(game);
+        line = new ChessMove[LINE_PLIES];
+        for (int i = 0; i < LINE_PLIES; i++) {
+            Collection<ChessMove> moves = lineGame.legalMoves(lineGame.getTeamTurn());
+            if (moves.isEmpty()) {
+                throw new IllegalStateException(position + " ends before " + LINE_PLIES + " moves");
+            }
+            line[i] = moves.iterator().next();
+            try {
+                lineGame.makeMove(line[i]);
+            } catch (InvalidMoveException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        json = GSON.toJson(game);
+        LegalMoveCache.shared().clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void reportCache() {
+        LegalMoveCache cache = LegalMoveCache.shared();
+        System.out.printf("%nLegal move cache: %d hits, %d misses, %d evictions, %.1f%% hit rate%n",
+                cache.hitCount(), cache.missCount(), cache.evictionCount(), cache.hitRate() * 100);
+    }
+
+    private static ChessGame copyOf(ChessGame game) {
+        ChessGame copy = new ChessGame();
+        copy.setBoard(game.getBoard().clone());
+        copy.setTeamTurn(game.getTeamTurn());
+        return copy;
+    }
+
+    /**
+     * Valid moves for every piece of the team to move, the way a client
+     * highlights them
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : ownPieces) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    /**
+     * Plays a line of moves on a fresh copy of the position, the copy is timed
+     * too but is shared out over the moves
+     */
+    @Benchmark
+    @OperationsPerInvocation(LINE_PLIES)
+    public ChessGame makeMove() throws InvalidMoveException {
+        ChessGame scratchGame = copyOf(game);
+        for (ChessMove move : line) {
+            scratchGame.makeMove(move);
+        }
+        return scratchGame;
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(turn);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(turn);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(turn);
+    }
+
+    @Benchmark
+    public ChessBoard cloneBoard() {
+        return game.getBoard().clone();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return GSON.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return GSON.fromJson(json, ChessGame.class);
+    }
+}
@@ -0,0 +1,38 @@
+package benchmark;
+
+import chess.ChessGame;
+
+/**
+ * The positions every benchmark is run over, one from each phase of a game
+ */
+public enum Positions {
+    /**
+     * A Sicilian a few moves in, with most pieces still on their starting squares
+     */
+    OPENING("rnbqkb1r/pp2pppp/3p1n2/8/3NP3/2N5/PPP2PPP/R1BQKB1R b KQkq - 2 5"),
+
+    /**
+     * A closed Italian game with every piece developed and nothing traded
+     */
+    MIDDLEGAME("r1b1k2r/bpp1qpp1/p1np1n1p/4p3/2B1P3/2PP1NNP/PP3PP1/R1BQK2R w KQkq - 4 10"),
+
+    /**
+     * A rook and pawns ending with the kings in the middle of the board
+     */
+    ENDGAME("r7/p4p2/4k1p1/7p/7P/4K1P1/P4P2/3R4 w - - 0 1");
+
+    private final String fen;
+
+    Positions(String fen) {
+        this.fen = fen;
+    }
+
+    /**
+     * Builds a fresh game in this position
+     *
+     * @return a game with this position on the board and the right team to move
+     */
+    public ChessGame newGame() {
+        return ChessGame.fromFen(fen);
+    }
+}
@@ -1,5 +1,9 @@
 package client;
 
-public record ListGamesResponse(GameInfo[] games) {
+/**
+ * @param nextAfterGameID afterGameID to ask for to get the next page, or null
+ *                        on the last page
+ */
+public record ListGamesResponse(GameInfo[] games, Integer nextAfterGameID) {
 
 }
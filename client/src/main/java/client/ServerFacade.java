@@ -6,6 +6,9 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.net.http.HttpRequest.BodyPublishers;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import com.google.gson.Gson;
@@ -71,14 +74,30 @@ public class ServerFacade {
         }
     }
 
+    /**
+     * Lists every game, following the server's pages until the last one
+     */
     public ListGamesResponse listGames(String authToken)
             throws UnauthorizedException, ServerErrorException, ConnectionErrorException {
-        var response = get("/game", authToken);
-        try {
-            return parseResponse(response, ListGamesResponse.class);
-        } catch (BadRequestException | AlreadyTakenException e) {
-            return null;
-        }
+        List<GameInfo> games = new ArrayList<>();
+        Integer afterGameID = null;
+        do {
+            String path = afterGameID == null ? "/game" : "/game?afterGameID=" + afterGameID;
+            var response = get(path, authToken);
+            ListGamesResponse page;
+            try {
+                page = parseResponse(response, ListGamesResponse.class);
+            } catch (BadRequestException | AlreadyTakenException e) {
+                return null;
+            }
+            games.addAll(Arrays.asList(page.games()));
+            // the cursor only moves forward, anything else would loop forever
+            if (page.nextAfterGameID() != null && afterGameID != null && page.nextAfterGameID() <= afterGameID) {
+                break;
+            }
+            afterGameID = page.nextAfterGameID();
+        } while (afterGameID != null);
+        return new ListGamesResponse(games.toArray(new GameInfo[0]), null);
     }
 
     public void playGame(String authToken, int gameID, TeamColor playerColor)
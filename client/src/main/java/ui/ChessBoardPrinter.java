@@ -46,7 +46,7 @@ public class ChessBoardPrinter extends StreamPrinter {
                     // rows are reversed since the console prints top to bottom whereas the board is
                     // bottom to top
                     ChessPiece piece = board
-                            .getPiece(new ChessPosition(ChessBoard.BOARD_ROWS - row + 1, col));
+                            .getPiece(ChessPosition.of(ChessBoard.BOARD_ROWS - row + 1, col));
                     if (piece != null) {
                         drawChessPiece(piece.getPieceType(), piece.getTeamColor());
                     } else {
@@ -1,24 +1,108 @@
 package dataaccess;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 
 public abstract class AbstractSQLDAO {
 
+    // MySQL error for adding an index that already exists, which lets indexes on
+    // existing tables be created again on every startup
+    private static final int DUPLICATE_INDEX = 1061;
+    private static final int DUPLICATE_ENTRY = 1062;
+
+    // names of the one time migrations that have been run
+    private static final String MIGRATION_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_migration (
+            `name` VARCHAR(64) PRIMARY KEY
+            )
+            """;
+
     public AbstractSQLDAO() {
         configureTable();
     }
 
     protected abstract String[] getTableConfig();
 
+    /**
+     * Changes an existing table in ways that can't simply be run again on every
+     * startup, called after the table config
+     */
+    protected void migrate(Connection conn) throws SQLException {
+    }
+
+    /**
+     * A change to existing rows or tables
+     */
+    @FunctionalInterface
+    protected interface Migration {
+        void apply(Connection conn) throws SQLException;
+    }
+
     private void configureTable() {
         try (Connection conn = DatabaseManager.getConnection()) {
             for (String statement : getTableConfig()) {
                 try (var preparedStatement = conn.prepareStatement(statement)) {
                     preparedStatement.executeUpdate();
+                } catch (SQLException ex) {
+                    if (ex.getErrorCode() != DUPLICATE_INDEX) {
+                        throw ex;
+                    }
                 }
             }
+            migrate(conn);
         } catch (Exception ex) {
             throw new RuntimeException("Error configuring database");
         }
     }
+
+    /**
+     * @return the data type of the column in the current database, lower case,
+     *         or null if the table has no such column
+     */
+    protected static String columnType(Connection conn, String table, String column) throws SQLException {
+        try (var preparedStatement = conn.prepareStatement("""
+                SELECT DATA_TYPE FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+                """)) {
+            preparedStatement.setString(1, table);
+            preparedStatement.setString(2, column);
+            try (var resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1).toLowerCase() : null;
+            }
+        }
+    }
+
+    /**
+     * Applies a migration unless one with the same name already has been. The
+     * name is recorded first so that two servers starting together don't both
+     * apply it, and dropped again if the migration fails so the next startup
+     * retries.
+     *
+     * @return whether the migration was applied
+     */
+    protected static boolean runOnce(Connection conn, String name, Migration migration) throws SQLException {
+        try (var preparedStatement = conn.prepareStatement(MIGRATION_TABLE)) {
+            preparedStatement.executeUpdate();
+        }
+        try (var preparedStatement = conn.prepareStatement("INSERT INTO schema_migration (name) VALUES (?)")) {
+            preparedStatement.setString(1, name);
+            preparedStatement.executeUpdate();
+        } catch (SQLException ex) {
+            if (ex.getErrorCode() == DUPLICATE_ENTRY) {
+                return false;
+            }
+            throw ex;
+        }
+
+        try {
+            migration.apply(conn);
+        } catch (SQLException | RuntimeException ex) {
+            try (var preparedStatement = conn.prepareStatement("DELETE FROM schema_migration WHERE name = ?")) {
+                preparedStatement.setString(1, name);
+                preparedStatement.executeUpdate();
+            }
+            throw ex;
+        }
+        return true;
+    }
 }
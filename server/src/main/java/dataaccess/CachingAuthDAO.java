@@ -0,0 +1,193 @@
+package dataaccess;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import model.AuthData;
+
+/**
+ * Remembers auth sessions in memory in front of another AuthDAO
+ * <p>
+ * Every authenticated request looks its token up, usually several times, so
+ * sessions that were created or found are kept for a while and served without
+ * asking the backing DAO. Deleting a session or clearing removes it here
+ * first. Only sessions that exist are cached, so made up tokens can't fill the
+ * cache. A session deleted through a different server's cache stays valid
+ * here for at most the time to live.
+ * <p>
+ * Every session lives equally long, so sessions are queued in the order they
+ * expire and the cache makes room by dropping from the front of the queue.
+ */
+public class CachingAuthDAO implements AuthDAO {
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    private final AuthDAO delegate;
+    private final int capacity;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Entry> sessions = new ConcurrentHashMap<>();
+    // remembered sessions oldest first, including ones since replaced or
+    // forgotten, guarded by itself
+    private final ArrayDeque<Entry> expiryQueue = new ArrayDeque<>();
+    // bumped after every delete and clear so a lookup that raced one doesn't
+    // cache the session it read before it was deleted
+    private final AtomicLong deletions = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private record Entry(AuthData authData, long expiresAtNanos) {
+    }
+
+    public CachingAuthDAO(AuthDAO delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param capacity   most sessions to remember
+     * @param timeToLive how long a remembered session is trusted before the
+     *                   backing DAO is asked again
+     */
+    public CachingAuthDAO(AuthDAO delegate, int capacity, Duration timeToLive) {
+        this(delegate, capacity, timeToLive, System::nanoTime);
+    }
+
+    CachingAuthDAO(AuthDAO delegate, int capacity, Duration timeToLive, LongSupplier clock) {
+        if (capacity < 1 || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Capacity and time to live must be positive");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public void createAuth(AuthData authData) throws DataAccessException {
+        delegate.createAuth(authData);
+        remember(authData);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            return delegate.getAuth(null);
+        }
+        Entry entry = sessions.get(authToken);
+        if (entry != null) {
+            if (clock.getAsLong() - entry.expiresAtNanos() < 0) {
+                hits.increment();
+                return entry.authData();
+            }
+            sessions.remove(authToken, entry);
+        }
+        misses.increment();
+        long deletionsBefore = deletions.get();
+        AuthData authData = delegate.getAuth(authToken);
+        if (authData != null) {
+            Entry remembered = remember(authData);
+            // a delete that finished after the lookup may have missed the new entry
+            if (remembered != null && deletions.get() != deletionsBefore) {
+                sessions.remove(authToken, remembered);
+            }
+        }
+        return authData;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        // forget the session even if the backing DAO fails so it can't linger here
+        if (authToken == null) {
+            delegate.deleteAuth(null);
+            return;
+        }
+        sessions.remove(authToken);
+        try {
+            delegate.deleteAuth(authToken);
+        } finally {
+            deletions.incrementAndGet();
+            sessions.remove(authToken);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        sessions.clear();
+        try {
+            delegate.clear();
+        } finally {
+            // drop anything cached by lookups that ran while clearing
+            deletions.incrementAndGet();
+            synchronized (expiryQueue) {
+                sessions.clear();
+                expiryQueue.clear();
+            }
+        }
+    }
+
+    /**
+     * @return number of lookups answered from memory
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that went to the backing DAO
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of sessions currently remembered
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the entry now cached for the session, or null if it wasn't cached
+     */
+    private Entry remember(AuthData authData) {
+        if (authData.authToken() == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        Entry entry = new Entry(authData, now + timeToLiveNanos);
+        synchronized (expiryQueue) {
+            sessions.put(authData.authToken(), entry);
+            expiryQueue.addLast(entry);
+            makeRoom(now);
+        }
+        return entry;
+    }
+
+    /**
+     * Drops sessions from the front of the queue while they have expired or the
+     * cache is over capacity. Queued entries that were replaced or forgotten are
+     * dropped along the way, and the queue is kept to twice the capacity so
+     * they can't pile up. Sessions that are dropped early are just looked up
+     * again.
+     */
+    private void makeRoom(long now) {
+        Entry oldest;
+        while ((oldest = expiryQueue.peekFirst()) != null) {
+            String authToken = oldest.authData().authToken();
+            boolean current = sessions.get(authToken) == oldest;
+            boolean expired = now - oldest.expiresAtNanos() >= 0;
+            if (current && !expired && sessions.size() <= capacity && expiryQueue.size() <= 2 * capacity) {
+                return;
+            }
+            expiryQueue.pollFirst();
+            if (current) {
+                sessions.remove(authToken, oldest);
+            }
+        }
+    }
+}
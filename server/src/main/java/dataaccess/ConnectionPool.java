@@ -0,0 +1,448 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of open database connections
+ * <p>
+ * Borrowers get a wrapper whose {@code close()} hands the connection back
+ * instead of closing it, so DAOs keep using try-with-resources as before. At
+ * most {@code maxSize} connections are out or idle at once, and a borrower
+ * waits up to the borrow timeout for one to free up. Idle connections are
+ * reused most recently returned first, checked before being handed out if they
+ * have sat for a while, and closed once they have been idle too long while
+ * more than {@code minSize} are open. A connection held past the leak threshold
+ * is reported along with where it was borrowed. Each connection keeps its
+ * prepared statements open in a {@link StatementCache} between borrowers.
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    // a connection used this recently is assumed to still be alive
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long MIN_HOUSEKEEPING_MILLIS = 1000;
+
+    /**
+     * Opens a new physical connection
+     */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * How the pool is sized and timed, read from {@code db.pool.*} properties
+     *
+     * @param minSize                   connections kept open even when idle
+     * @param maxSize                   most connections open at once
+     * @param borrowTimeoutMillis       longest a borrower waits for a connection
+     * @param idleTimeoutMillis         how long a connection above the minimum may
+     *                                  sit idle before it is closed
+     * @param validationTimeoutSeconds  longest a liveness check may take
+     * @param leakThresholdMillis       how long a connection may be held before it
+     *                                  is reported as leaked, or 0 to not check
+     * @param statementCacheSize        prepared statements kept open on each
+     *                                  connection, or 0 to not cache them
+     */
+    public record Settings(int minSize, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis,
+            int validationTimeoutSeconds, long leakThresholdMillis, int statementCacheSize) {
+
+        public Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Pool sizes must satisfy 0 <= min <= max and max >= 1");
+            }
+            if (borrowTimeoutMillis < 0 || idleTimeoutMillis < 1 || validationTimeoutSeconds < 0
+                    || leakThresholdMillis < 0 || statementCacheSize < 0) {
+                throw new IllegalArgumentException(
+                        "Pool settings must not be negative and the idle timeout must be positive");
+            }
+        }
+
+        /**
+         * Reads the settings, using defaults suited to a small server for any that
+         * are missing
+         */
+        public static Settings fromProperties(Properties props) {
+            return new Settings(intProperty(props, "db.pool.minSize", 2),
+                    intProperty(props, "db.pool.maxSize", 10),
+                    intProperty(props, "db.pool.borrowTimeoutMillis", 5000),
+                    intProperty(props, "db.pool.idleTimeoutMillis", 300_000),
+                    intProperty(props, "db.pool.validationTimeoutSeconds", 2),
+                    intProperty(props, "db.pool.leakThresholdMillis", 30_000),
+                    intProperty(props, "db.pool.statementCacheSize", 64));
+        }
+
+        private static int intProperty(Properties props, String name, int defaultValue) {
+            String value = props.getProperty(name);
+            return value == null ? defaultValue : Integer.parseInt(value.strip());
+        }
+    }
+
+    /**
+     * A snapshot of the pool's state and counters since it was created
+     *
+     * @param open            connections currently open, idle or borrowed
+     * @param idle            open connections waiting to be borrowed
+     * @param borrowed        connections currently handed out
+     * @param borrows         connections handed out
+     * @param timeouts        borrowers that gave up waiting
+     * @param created         physical connections opened
+     * @param discarded       connections closed for failing a check or sitting
+     *                        idle
+     * @param leaks           connections reported as held too long
+     * @param totalWaitMillis time borrowers spent waiting for a connection
+     * @param statementHits   prepared statements reused from a connection's
+     *                        cache
+     * @param statementMisses prepared statements the driver had to prepare
+     */
+    public record Stats(int open, int idle, int borrowed, long borrows, long timeouts, long created,
+            long discarded, long leaks, long totalWaitMillis, long statementHits, long statementMisses) {
+
+        /**
+         * @return fraction of statement prepares answered from the cache, or 0
+         *         before any
+         */
+        public double statementHitRate() {
+            long total = statementHits + statementMisses;
+            return total == 0 ? 0 : (double) statementHits / total;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    // one permit per connection that may be handed out
+    private final Semaphore permits;
+    // most recently returned first so the warmest connections are reused
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(MIN_HOUSEKEEPING_MILLIS,
+                Math.min(settings.idleTimeoutMillis(), leakCheckPeriod()) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private long leakCheckPeriod() {
+        return settings.leakThresholdMillis() == 0 ? Long.MAX_VALUE : settings.leakThresholdMillis();
+    }
+
+    /**
+     * Hands out an open connection, waiting for one to be returned if the pool is
+     * at its maximum size. Closing the connection returns it to the pool.
+     *
+     * @throws SQLException if no connection frees up in time or a new one can't
+     *                      be opened
+     */
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Timed out after " + settings.borrowTimeoutMillis()
+                        + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", ex);
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+
+        try {
+            PooledConnection connection = takeValidIdle();
+            if (connection == null) {
+                connection = openConnection();
+            }
+            connection.lease();
+            borrowed.add(connection);
+            borrows.increment();
+            return connection.proxy();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (connection.isAlive()) {
+                return connection;
+            }
+            discard(connection);
+        }
+        return null;
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        Connection physical = factory.open();
+        open.incrementAndGet();
+        created.increment();
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Takes back a connection its borrower closed, resetting any state the
+     * borrower left behind
+     */
+    private void release(PooledConnection connection) {
+        borrowed.remove(connection);
+        try {
+            if (closed || !connection.reset()) {
+                discard(connection);
+            } else {
+                idle.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection connection) {
+        discarded.increment();
+        open.decrementAndGet();
+        connection.closePhysical();
+    }
+
+    /**
+     * Closes connections idle past the timeout while above the minimum, opens
+     * connections up to the minimum and reports leaks
+     */
+    void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMillis());
+        // the longest idle connections are at the back
+        PooledConnection connection;
+        while (open.get() > settings.minSize() && (connection = idle.peekLast()) != null
+                && now - connection.lastUsedNanos > idleTimeoutNanos) {
+            if (idle.removeLastOccurrence(connection)) {
+                discard(connection);
+            }
+        }
+
+        while (open.get() < settings.minSize() && permits.tryAcquire()) {
+            try {
+                idle.offerLast(openConnection());
+            } catch (SQLException ex) {
+                LOG.warn("Could not open a database connection to keep the pool at its minimum size", ex);
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+
+        if (settings.leakThresholdMillis() > 0) {
+            long leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(settings.leakThresholdMillis());
+            for (PooledConnection held : borrowed) {
+                if (!held.leakReported && now - held.borrowedNanos > leakThresholdNanos) {
+                    held.leakReported = true;
+                    leaks.increment();
+                    LOG.warn("Database connection held for over {} ms without being closed",
+                            settings.leakThresholdMillis(), held.borrowedAt);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a snapshot of the pool's size and counters
+     */
+    public Stats stats() {
+        return new Stats(open.get(), idle.size(), borrowed.size(), borrows.sum(), timeouts.sum(), created.sum(),
+                discarded.sum(), leaks.sum(), TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()), statementHits.sum(),
+                statementMisses.sum());
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones. Borrowed
+     * connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    /**
+     * One physical connection and the bookkeeping for its current lease
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsedNanos;
+        private volatile long borrowedNanos;
+        private volatile Throwable borrowedAt;
+        private volatile boolean leakReported;
+        private Lease lease;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, settings.statementCacheSize(), statementHits,
+                    statementMisses);
+            this.lastUsedNanos = System.nanoTime();
+        }
+
+        void lease() {
+            borrowedNanos = System.nanoTime();
+            leakReported = false;
+            // capturing the stack is only worth it when leaks are being looked for
+            borrowedAt = settings.leakThresholdMillis() > 0 ? new Throwable("Connection borrowed here") : null;
+            lease = new Lease(this);
+        }
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, lease);
+        }
+
+        boolean isAlive() {
+            if (System.nanoTime() - lastUsedNanos < VALIDATION_BYPASS_NANOS) {
+                return true;
+            }
+            try {
+                return physical.isValid(settings.validationTimeoutSeconds());
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * Undoes transaction state a borrower may have left behind
+         *
+         * @return false if the connection is no longer usable
+         */
+        boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                statements.reclaim();
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                lastUsedNanos = System.nanoTime();
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            statements.closeAll();
+            try {
+                physical.close();
+            } catch (SQLException ex) {
+                LOG.debug("Error closing a pooled database connection", ex);
+            }
+        }
+    }
+
+    /**
+     * The borrower's view of a pooled connection, which returns it to the pool
+     * when closed and refuses to be used afterwards
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection connection;
+        private boolean returned;
+
+        Lease(PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            release(connection);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return returned || connection.physical.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + connection.physical;
+                default:
+                    break;
+            }
+            synchronized (this) {
+                if (returned) {
+                    throw new SQLException("Connection has been returned to the pool");
+                }
+            }
+            if (method.getName().equals("prepareStatement")) {
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length == 1) {
+                    return connection.statements.prepare((String) args[0], Statement.NO_GENERATED_KEYS,
+                            (Connection) proxy);
+                } else if (parameterTypes.length == 2 && parameterTypes[1] == int.class) {
+                    return connection.statements.prepare((String) args[0], (Integer) args[1], (Connection) proxy);
+                }
+            }
+            try {
+                return method.invoke(connection.physical, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
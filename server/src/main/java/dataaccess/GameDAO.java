@@ -3,6 +3,7 @@ package dataaccess;
 import java.util.Collection;
 
 import model.GameData;
+import model.GameSummary;
 
 public interface GameDAO {
 
@@ -12,6 +13,12 @@ public interface GameDAO {
 
     Collection<GameData> listGames() throws DataAccessException;
 
+    /**
+     * Lists one page of games matching the query, in order of game ID, without
+     * loading their boards
+     */
+    Collection<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException;
+
     void updateGame(GameData updatedGameData) throws DataAccessException;
 
     void clear() throws DataAccessException;
@@ -0,0 +1,50 @@
+package dataaccess;
+
+import model.GameSummary;
+
+/**
+ * One page of a game listing and the filters it is narrowed by
+ * <p>
+ * Pages are keyed by game ID rather than by offset, so each page starts right
+ * after the last game of the one before it and costs the same however deep
+ * into the listing it is.
+ *
+ * @param afterGameID  only games with a larger ID are listed, 0 to start from
+ *                     the first game
+ * @param limit        most games to list
+ * @param openSeatsOnly only list unfinished games with a free seat
+ * @param player       only list games this user is playing in, or null for any
+ * @param namePrefix   only list games whose name starts with this, or null for
+ *                     any
+ */
+public record GameQuery(int afterGameID, int limit, boolean openSeatsOnly, String player, String namePrefix) {
+
+    public GameQuery {
+        if (afterGameID < 0 || limit < 1) {
+            throw new IllegalArgumentException("Game ID cursor must not be negative and limit must be positive");
+        }
+        if (namePrefix != null && namePrefix.isEmpty()) {
+            namePrefix = null;
+        }
+    }
+
+    /**
+     * @return a query for up to {@code limit} games with no filters
+     */
+    public static GameQuery firstPage(int limit) {
+        return new GameQuery(0, limit, false, null, null);
+    }
+
+    /**
+     * @return whether the game passes the filters, ignoring the page bounds
+     */
+    public boolean matches(GameSummary game) {
+        if (openSeatsOnly && game.status() != GameSummary.Status.OPEN) {
+            return false;
+        }
+        if (player != null && !player.equals(game.whiteUsername()) && !player.equals(game.blackUsername())) {
+            return false;
+        }
+        return namePrefix == null || (game.gameName() != null && game.gameName().startsWith(namePrefix));
+    }
+}
@@ -2,8 +2,10 @@ package dataaccess;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 
 import model.GameData;
+import model.GameSummary;
 
 public class MemoryGameDAO implements GameDAO {
     private ArrayList<GameData> games;
@@ -36,6 +38,22 @@ public class MemoryGameDAO implements GameDAO {
         return games;
     }
 
+    @Override
+    public Collection<GameSummary> listGameSummaries(GameQuery query) {
+        // updated games move to the end of the list, so it isn't in ID order
+        ArrayList<GameSummary> page = new ArrayList<>();
+        for (GameData game : games) {
+            if (game.gameID() > query.afterGameID()) {
+                GameSummary summary = GameSummary.of(game);
+                if (query.matches(summary)) {
+                    page.add(summary);
+                }
+            }
+        }
+        page.sort(Comparator.comparingInt(GameSummary::gameID));
+        return new ArrayList<>(page.subList(0, Math.min(page.size(), query.limit())));
+    }
+
     @Override
     public void updateGame(GameData updatedGameData) throws DataAccessException {
         boolean removed = games.removeIf(gameData -> gameData.gameID() == updatedGameData.gameID());
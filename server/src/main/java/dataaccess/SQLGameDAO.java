@@ -1,15 +1,29 @@
 package dataaccess;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 
+import chess.ChessBoard;
 import chess.ChessGame;
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece;
+import chess.ChessPiece.PieceType;
+import chess.ChessPosition;
+import chess.GameCodec;
 import model.GameData;
+import model.GameSummary;
 
 public class SQLGameDAO extends AbstractSQLDAO implements GameDAO {
 
@@ -20,11 +34,22 @@ public class SQLGameDAO extends AbstractSQLDAO implements GameDAO {
                     `white` VARCHAR(256) DEFAULT NULL,
                     `black` VARCHAR(256) DEFAULT NULL,
                     `name` VARCHAR(256) NOT NULL,
-                    `game` TEXT NOT NULL
+                    `game` BLOB NOT NULL,
+                    `finished` BOOLEAN NOT NULL DEFAULT FALSE
                     )
-                            """
+                            """,
+            // for the listing filters, InnoDB appends the id to each so matches come
+            // back in page order
+            "CREATE INDEX game_white ON game (`white`)",
+            "CREATE INDEX game_black ON game (`black`)",
+            "CREATE INDEX game_name ON game (`name`)"
     };
 
+    private final static char LIKE_ESCAPE = '!';
+
+    // rows written before the binary encoding hold a JSON object
+    private final static byte LEGACY_JSON_START = '{';
+
     private final static Gson GSON = new Gson();
 
     public SQLGameDAO() {
@@ -35,22 +60,24 @@ public class SQLGameDAO extends AbstractSQLDAO implements GameDAO {
     public int createGame(GameData gameData) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
             try (var preparedStatement = conn.prepareStatement(
-                    "INSERT INTO game (white, black, name, game) VALUES(?, ?, ?, ?)",
+                    "INSERT INTO game (white, black, name, game, finished) VALUES(?, ?, ?, ?, ?)",
                     Statement.RETURN_GENERATED_KEYS)) {
                 preparedStatement.setString(1, gameData.whiteUsername());
                 preparedStatement.setString(2, gameData.blackUsername());
                 preparedStatement.setString(3, gameData.gameName());
-                preparedStatement.setString(4, GSON.toJson(gameData.game()));
+                preparedStatement.setBytes(4, GameCodec.encode(gameData.game()));
+                preparedStatement.setBoolean(5, gameData.game().isOver());
 
                 preparedStatement.executeUpdate();
 
-                var resultSet = preparedStatement.getGeneratedKeys();
-                int id = 0;
-                if (resultSet.next()) {
-                    id = resultSet.getInt(1);
-                }
+                try (var resultSet = preparedStatement.getGeneratedKeys()) {
+                    int id = 0;
+                    if (resultSet.next()) {
+                        id = resultSet.getInt(1);
+                    }
 
-                return id;
+                    return id;
+                }
             }
         } catch (SQLException ex) {
             throw new DataAccessException(ex.getMessage());
@@ -66,9 +93,7 @@ public class SQLGameDAO extends AbstractSQLDAO implements GameDAO {
 
                 try (var resultSet = preparedStatement.executeQuery()) {
                     if (resultSet.next()) {
-                        return new GameData(resultSet.getInt("id"), resultSet.getString("white"),
-                                resultSet.getString("black"), resultSet.getString("name"), GSON.fromJson(
-                                        resultSet.getString("game"), ChessGame.class));
+                        return readGame(resultSet);
                     }
                 }
             }
@@ -88,9 +113,51 @@ public class SQLGameDAO extends AbstractSQLDAO implements GameDAO {
 
                 try (var resultSet = preparedStatement.executeQuery()) {
                     while (resultSet.next()) {
-                        games.add(new GameData(resultSet.getInt("id"), resultSet.getString("white"),
-                                resultSet.getString("black"), resultSet.getString("name"), GSON.fromJson(
-                                        resultSet.getString("game"), ChessGame.class)));
+                        games.add(readGame(resultSet));
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+
+        return games;
+    }
+
+    @Override
+    public Collection<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException {
+        StringBuilder sql = new StringBuilder("SELECT id, white, black, name, finished FROM game WHERE id > ?");
+        if (query.openSeatsOnly()) {
+            sql.append(" AND (white IS NULL OR black IS NULL) AND NOT finished");
+        }
+        if (query.player() != null) {
+            sql.append(" AND (white = ? OR black = ?)");
+        }
+        if (query.namePrefix() != null) {
+            sql.append(" AND name LIKE ? ESCAPE '").append(LIKE_ESCAPE).append("'");
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+
+        Collection<GameSummary> games = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (var preparedStatement = conn.prepareStatement(sql.toString())) {
+                int parameter = 1;
+                preparedStatement.setInt(parameter++, query.afterGameID());
+                if (query.player() != null) {
+                    preparedStatement.setString(parameter++, query.player());
+                    preparedStatement.setString(parameter++, query.player());
+                }
+                if (query.namePrefix() != null) {
+                    preparedStatement.setString(parameter++, escapeLike(query.namePrefix()) + "%");
+                }
+                preparedStatement.setInt(parameter, query.limit());
+
+                try (var resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        String white = resultSet.getString("white");
+                        String black = resultSet.getString("black");
+                        games.add(new GameSummary(resultSet.getInt("id"), white, black, resultSet.getString("name"),
+                                GameSummary.statusOf(white, black, resultSet.getBoolean("finished"))));
                     }
                 }
             }
@@ -105,12 +172,13 @@ public class SQLGameDAO extends AbstractSQLDAO implements GameDAO {
     public void updateGame(GameData updatedGameData) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
             try (var preparedStatement = conn.prepareStatement(
-                    "UPDATE game SET white=?, black=?, name=?, game=? WHERE id=?")) {
+                    "UPDATE game SET white=?, black=?, name=?, game=?, finished=? WHERE id=?")) {
                 preparedStatement.setString(1, updatedGameData.whiteUsername());
                 preparedStatement.setString(2, updatedGameData.blackUsername());
                 preparedStatement.setString(3, updatedGameData.gameName());
-                preparedStatement.setString(4, GSON.toJson(updatedGameData.game()));
-                preparedStatement.setInt(5, updatedGameData.gameID());
+                preparedStatement.setBytes(4, GameCodec.encode(updatedGameData.game()));
+                preparedStatement.setBoolean(5, updatedGameData.game().isOver());
+                preparedStatement.setInt(6, updatedGameData.gameID());
 
                 int updated = preparedStatement.executeUpdate();
                 if (updated == 0) {
@@ -133,9 +201,147 @@ public class SQLGameDAO extends AbstractSQLDAO implements GameDAO {
         }
     }
 
+    private static GameData readGame(ResultSet resultSet) throws SQLException, DataAccessException {
+        return new GameData(resultSet.getInt("id"), resultSet.getString("white"),
+                resultSet.getString("black"), resultSet.getString("name"), decodeGame(resultSet.getBytes("game")));
+    }
+
+    /**
+     * Reads a stored game, falling back to JSON for rows saved before the binary
+     * encoding
+     */
+    static ChessGame decodeGame(byte[] stored) throws DataAccessException {
+        try {
+            if (stored != null && stored.length > 0 && stored[0] == LEGACY_JSON_START) {
+                JsonObject json = JsonParser.parseString(new String(stored, StandardCharsets.UTF_8))
+                        .getAsJsonObject();
+                if (isPieceGridJson(json)) {
+                    return readPieceGridJson(json);
+                }
+                return GSON.fromJson(json, ChessGame.class);
+            }
+            return GameCodec.decode(stored);
+        } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException
+                | JsonParseException ex) {
+            throw new DataAccessException("Stored game is corrupt", ex);
+        }
+    }
+
+    /**
+     * @return whether the JSON is a game from when the board was a grid of
+     *         pieces, {@code {"board":{"board":[[piece or null, ...], ...]}}}
+     */
+    private static boolean isPieceGridJson(JsonObject json) {
+        JsonElement board = json.get("board");
+        return board != null && board.isJsonObject() && board.getAsJsonObject().has("board")
+                && board.getAsJsonObject().get("board").isJsonArray();
+    }
+
+    /**
+     * Rebuilds a game saved as a grid of pieces. Those games didn't track
+     * castling or en passant, so castling is allowed for any king and rook on
+     * their starting squares.
+     */
+    private static ChessGame readPieceGridJson(JsonObject json) {
+        JsonArray rows = json.getAsJsonObject("board").getAsJsonArray("board");
+        if (rows.size() != ChessBoard.BOARD_ROWS) {
+            throw new JsonParseException("Stored board has " + rows.size() + " rows");
+        }
+        ChessBoard board = new ChessBoard();
+        for (int row = 1; row <= ChessBoard.BOARD_ROWS; row++) {
+            JsonArray pieces = rows.get(row - 1).getAsJsonArray();
+            if (pieces.size() != ChessBoard.BOARD_COLS) {
+                throw new JsonParseException("Stored board row " + row + " has " + pieces.size() + " squares");
+            }
+            for (int col = 1; col <= ChessBoard.BOARD_COLS; col++) {
+                JsonElement piece = pieces.get(col - 1);
+                if (piece.isJsonNull()) {
+                    continue;
+                }
+                JsonObject fields = piece.getAsJsonObject();
+                board.addPiece(ChessPosition.of(row, col),
+                        ChessPiece.of(TeamColor.valueOf(requiredString(fields, "teamColor")),
+                                PieceType.valueOf(requiredString(fields, "type"))));
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        JsonElement turn = json.get("currentTeamTurn");
+        game.setTeamTurn(turn == null || turn.isJsonNull() ? TeamColor.WHITE : TeamColor.valueOf(turn.getAsString()));
+        game.setBoard(board);
+        return game;
+    }
+
+    private static String requiredString(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        if (value == null || value.isJsonNull()) {
+            throw new JsonParseException("Stored piece is missing " + name);
+        }
+        return value.getAsString();
+    }
+
+    /**
+     * Escapes the LIKE wildcards in text so it only matches itself
+     */
+    private static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 4);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
     @Override
     protected String[] getTableConfig() {
         return TABLE_CONFIG;
     }
 
+    @Override
+    protected void migrate(Connection conn) throws SQLException {
+        // games used to be stored as JSON text, which a blob still holds as is
+        if (!"blob".equals(columnType(conn, "game", "game"))) {
+            try (var preparedStatement = conn.prepareStatement("ALTER TABLE game MODIFY `game` BLOB NOT NULL")) {
+                preparedStatement.executeUpdate();
+            }
+        }
+        // kept next to the game so listing games never has to decode them
+        if (columnType(conn, "game", "finished") == null) {
+            try (var preparedStatement = conn.prepareStatement(
+                    "ALTER TABLE game ADD COLUMN `finished` BOOLEAN NOT NULL DEFAULT FALSE")) {
+                preparedStatement.executeUpdate();
+            }
+        }
+        runOnce(conn, "game-finished-backfill", SQLGameDAO::backfillFinished);
+    }
+
+    /**
+     * Marks the games that ended before the finished column was kept up to date
+     */
+    private static void backfillFinished(Connection conn) throws SQLException {
+        Collection<Integer> finished = new ArrayList<>();
+        try (var preparedStatement = conn.prepareStatement("SELECT id, game FROM game WHERE NOT finished");
+                var resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                try {
+                    if (decodeGame(resultSet.getBytes("game")).isOver()) {
+                        finished.add(resultSet.getInt("id"));
+                    }
+                } catch (DataAccessException ex) {
+                    // a corrupt game fails when it is loaded, listing it as unfinished is fine
+                }
+            }
+        }
+        try (var preparedStatement = conn.prepareStatement("UPDATE game SET finished = TRUE WHERE id = ?")) {
+            for (int id : finished) {
+                preparedStatement.setInt(1, id);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
 }
@@ -0,0 +1,268 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the prepared statements of one pooled connection open between uses
+ * <p>
+ * Statements are keyed by their SQL text and whether they return generated
+ * keys. Closing a cached statement clears its parameters and keeps it for the
+ * next borrower that prepares the same SQL, so the statement is parsed once per
+ * connection rather than once per call. The result sets it handed out are
+ * closed along with it, as they would be if it closed for real. With server
+ * side prepared statements the database keeps its plan for as long as the
+ * statement stays open. The least recently used statement is closed once the
+ * cache is full.
+ */
+final class StatementCache {
+
+    private final Connection connection;
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<Key, CachedStatement> statements;
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    /**
+     * @param capacity most statements to keep open, 0 turns caching off
+     * @param hits     counter of prepares answered from the cache
+     * @param misses   counter of prepares that went to the driver
+     */
+    StatementCache(Connection connection, int capacity, LongAdder hits, LongAdder misses) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a prepared statement for the SQL, reusing a cached one if it isn't
+     * already in use. A statement prepared while the cached one is in use is a
+     * plain statement that closes for real.
+     *
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or
+     *                          {@link Statement#NO_GENERATED_KEYS}
+     * @param owner             the borrower's connection, which the statement
+     *                          gives out in place of the physical one
+     */
+    synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection owner)
+            throws SQLException {
+        if (capacity == 0) {
+            return ownedBy(connection.prepareStatement(sql, autoGeneratedKeys), owner);
+        }
+        Key key = new Key(sql, autoGeneratedKeys);
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+            cached.lend(owner);
+            return cached.proxy;
+        }
+        misses.increment();
+        PreparedStatement physical = connection.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            return ownedBy(physical, owner);
+        }
+        cached = new CachedStatement(physical);
+        cached.lend(owner);
+        statements.put(key, cached);
+        return cached.proxy;
+    }
+
+    /**
+     * Wraps a statement that isn't cached so that it doesn't give out the
+     * physical connection, which would let a borrower close it behind the pool's
+     * back
+     */
+    private static PreparedStatement ownedBy(PreparedStatement physical, Connection owner) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        return owner;
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+    }
+
+    /**
+     * @return number of statements being kept open
+     */
+    synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Takes back statements a borrower forgot to close when its connection is
+     * returned to the pool
+     */
+    synchronized void reclaim() {
+        List<Key> broken = new ArrayList<>();
+        for (Map.Entry<Key, CachedStatement> entry : statements.entrySet()) {
+            CachedStatement cached = entry.getValue();
+            if (cached.inUse && !cached.returnToCache()) {
+                broken.add(entry.getKey());
+            }
+        }
+        for (Key key : broken) {
+            statements.remove(key).evict();
+        }
+    }
+
+    /**
+     * Closes every cached statement, used when the connection is discarded
+     */
+    synchronized void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.evict();
+        }
+        statements.clear();
+    }
+
+    /**
+     * A statement kept open in the cache and the wrapper handed to borrowers
+     */
+    private final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final PreparedStatement proxy;
+        // result sets handed to the current borrower
+        private final List<ResultSet> results = new ArrayList<>();
+        private Connection owner;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, this);
+        }
+
+        private void lend(Connection owner) {
+            this.owner = owner;
+            inUse = true;
+        }
+
+        /**
+         * Closes the result sets the statement handed out and clears it for its
+         * next user
+         *
+         * @return false if the statement is broken and shouldn't be reused
+         */
+        private boolean returnToCache() {
+            inUse = false;
+            owner = null;
+            boolean reusable = true;
+            for (ResultSet resultSet : results) {
+                try {
+                    resultSet.close();
+                } catch (SQLException ex) {
+                    reusable = false;
+                }
+            }
+            results.clear();
+            try {
+                physical.clearParameters();
+            } catch (SQLException ex) {
+                return false;
+            }
+            return reusable;
+        }
+
+        /**
+         * Drops the statement from use, closing it now if nobody holds it or when
+         * its holder closes it
+         */
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException ex) {
+                // the statement is being thrown away either way
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (StatementCache.this) {
+                        if (evicted) {
+                            inUse = false;
+                            closePhysical();
+                        } else if (inUse && !returnToCache()) {
+                            statements.values().remove(this);
+                            evict();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    synchronized (StatementCache.this) {
+                        return !inUse || physical.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached " + physical;
+                default:
+                    break;
+            }
+            Connection borrower;
+            synchronized (StatementCache.this) {
+                if (!inUse) {
+                    throw new SQLException("Statement is closed");
+                }
+                borrower = owner;
+            }
+            if (method.getName().equals("getConnection")) {
+                return borrower;
+            }
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            if (result instanceof ResultSet resultSet) {
+                synchronized (StatementCache.this) {
+                    results.add(resultSet);
+                }
+            }
+            return result;
+        }
+    }
+}
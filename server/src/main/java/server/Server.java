@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 
 import chess.ChessGame.TeamColor;
 import dataaccess.AuthDAO;
+import dataaccess.CachingAuthDAO;
 import dataaccess.DataAccessException;
 import dataaccess.DatabaseManager;
 import dataaccess.GameDAO;
@@ -24,6 +25,7 @@ public class Server {
     private final UserService userService;
     private final GameService gameService;
     private final DBService dbService;
+    private final BotService botService;
     private final AuthDAO authDAO;
     private final UserDAO userDAO;
     private final GameDAO gameDAO;
@@ -39,13 +41,15 @@ public class Server {
             System.exit(-1);
         }
         // DAOs
-        authDAO = new SQLAuthDAO();
+        // auth tokens are looked up on every authenticated request
+        authDAO = new CachingAuthDAO(new SQLAuthDAO());
         userDAO = new SQLUserDAO();
         gameDAO = new SQLGameDAO();
         // Services
         userService = new UserService(userDAO, authDAO);
         gameService = new GameService(gameDAO, authDAO);
         dbService = new DBService(authDAO, userDAO, gameDAO);
+        botService = new BotService(gameDAO, authDAO);
         // web server
         javalin = Javalin.create(config -> {
             config.staticFiles.add("web");
@@ -79,7 +83,16 @@ public class Server {
 
         javalin.before("/game", new AuthenticateHandler(authDAO));
         javalin.get("/game", ctx -> {
-            GameListResponse gameListResponse = gameService.list();
+            GameListRequest gameListRequest = new GameListRequest(
+                    ctx.queryParamAsClass("afterGameID", Integer.class)
+                            .check(id -> id >= 0, "invalid game ID").getOrDefault(0),
+                    ctx.queryParamAsClass("limit", Integer.class)
+                            .check(limit -> limit > 0 && limit <= GameService.MAX_PAGE_SIZE, "invalid limit")
+                            .getOrDefault(GameService.DEFAULT_PAGE_SIZE),
+                    ctx.queryParamAsClass("openSeats", Boolean.class).getOrDefault(false),
+                    ctx.queryParam("player"),
+                    ctx.queryParam("namePrefix"));
+            GameListResponse gameListResponse = gameService.list(gameListRequest);
             ctx.status(200).json(gameListResponse);
         });
 
@@ -107,6 +120,16 @@ public class Server {
             ctx.status(200);
         });
 
+        javalin.before("/game/bot", new AuthenticateHandler(authDAO));
+        javalin.post("/game/bot", ctx -> {
+            BotMoveRequest botMoveRequest = ctx.bodyValidator(BotMoveRequest.class)
+                    .check(req -> req.gameID() > 0, "invalid game ID").get();
+            String authToken = ctx.header("authorization");
+            // the search runs on the bot's threads rather than this request thread
+            var botMove = botService.moveAsync(botMoveRequest, authToken);
+            ctx.future(() -> botMove.thenAccept(botMoveResponse -> ctx.status(200).json(botMoveResponse)));
+        });
+
         javalin.delete("/db", ctx -> {
             dbService.clear();
             ctx.status(200);
@@ -149,5 +172,6 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+        botService.close();
     }
 }
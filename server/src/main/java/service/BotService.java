@@ -0,0 +1,220 @@
+package service;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import chess.ChessGame;
+import chess.ChessGame.TeamColor;
+import chess.ChessMove;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.SearchEngine;
+import dataaccess.AuthDAO;
+import dataaccess.DataAccessException;
+import dataaccess.GameDAO;
+import model.AuthData;
+import model.GameData;
+import service.request.BotMoveRequest;
+import service.result.BotMoveResponse;
+
+/**
+ * Plays moves for a computer opponent
+ * <p>
+ * Only a player in the game may ask for a bot move, and only for the seat that
+ * is to move when nobody or the bot holds it. The bot takes an empty seat the
+ * first time it moves there. Searches run on a small pool of threads that each
+ * use one engine from a fixed set, so request threads aren't held while the bot
+ * thinks and the memory used by transposition tables stays bounded.
+ * <p>
+ * The bot moves in a game one search at a time, and its move is only saved if
+ * nobody moved or took a seat in the game while it was thinking.
+ */
+public class BotService implements AutoCloseable {
+
+    /**
+     * Name the bot plays under, users can't register it
+     */
+    public static final String BOT_USERNAME = "[bot]";
+
+    private static final long DEFAULT_MOVE_TIME_MILLIS = 1000;
+    private static final int DEFAULT_SEARCH_THREADS = Math.max(1,
+            Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    // searches that may wait for a thread before more are turned away
+    private static final int QUEUED_SEARCHES_PER_THREAD = 4;
+
+    private GameDAO gameDAO;
+    private AuthDAO authDAO;
+    private long moveTimeMillis;
+    private final ThreadPoolExecutor searchPool;
+    // one engine per search thread, taken for the length of a search
+    private final BlockingQueue<SearchEngine> engines;
+    // games the bot is searching a move for
+    private final Set<Integer> movingIn = ConcurrentHashMap.newKeySet();
+
+    public BotService(GameDAO gameDAO, AuthDAO authDAO) {
+        this(gameDAO, authDAO, DEFAULT_MOVE_TIME_MILLIS, DEFAULT_SEARCH_THREADS);
+    }
+
+    /**
+     * @param moveTimeMillis how long the bot may think about each move
+     * @param searchThreads  how many moves may be searched for at once
+     */
+    public BotService(GameDAO gameDAO, AuthDAO authDAO, long moveTimeMillis, int searchThreads) {
+        if (searchThreads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        this.gameDAO = gameDAO;
+        this.authDAO = authDAO;
+        this.moveTimeMillis = moveTimeMillis;
+        this.engines = new ArrayBlockingQueue<>(searchThreads);
+        for (int i = 0; i < searchThreads; i++) {
+            engines.add(new SearchEngine());
+        }
+        this.searchPool = new ThreadPoolExecutor(searchThreads, searchThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(searchThreads * QUEUED_SEARCHES_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "bot-search");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Searches for a move for the team whose turn it is and plays it in the game,
+     * waiting for the search to finish
+     *
+     * @return the move that was played
+     * @see #moveAsync(BotMoveRequest, String)
+     */
+    public BotMoveResponse move(BotMoveRequest botMoveRequest, String authToken) throws DoesNotExistException,
+            UnauthorizedException, AlreadyTakenException, ServerErrorException {
+        try {
+            return moveAsync(botMoveRequest, authToken).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServerErrorException("Interrupted waiting for the bot");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof DoesNotExistException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof AlreadyTakenException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof ServerErrorException cause) {
+                throw cause;
+            }
+            throw new ServerErrorException(ex.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Checks the caller may ask for a bot move in the game, then searches for a
+     * move on the bot's threads and plays it. The future fails with a
+     * {@link CompletionException} around a {@link DoesNotExistException} if the
+     * game ended in the meantime, an {@link AlreadyTakenException} if someone
+     * moved or took a seat while the bot was thinking, or a
+     * {@link ServerErrorException} if it can't be saved.
+     *
+     * @return the move that will be played
+     * @throws DoesNotExistException if the game doesn't exist or is already over
+     * @throws UnauthorizedException if the caller isn't a player in the game
+     * @throws AlreadyTakenException if a person holds the seat that is to move,
+     *                               or the bot is already moving in the game
+     * @throws ServerErrorException  if the bot is too busy to take the search
+     */
+    public CompletableFuture<BotMoveResponse> moveAsync(BotMoveRequest botMoveRequest, String authToken)
+            throws DoesNotExistException, UnauthorizedException, AlreadyTakenException, ServerErrorException {
+        GameData gameData;
+        String username;
+        try {
+            gameData = gameDAO.getGame(botMoveRequest.gameID());
+            if (gameData == null) {
+                throw new DoesNotExistException("Game does not exist");
+            }
+            AuthData authData = authDAO.getAuth(authToken);
+            if (authData == null) {
+                throw new UnauthorizedException("Unauthorized");
+            }
+            username = authData.username();
+        } catch (DataAccessException ex) {
+            throw new ServerErrorException(ex.getMessage());
+        }
+        if (!username.equals(gameData.whiteUsername()) && !username.equals(gameData.blackUsername())) {
+            throw new UnauthorizedException("Not a player in this game");
+        }
+        ChessGame game = gameData.game();
+        TeamColor botColor = game.getTeamTurn();
+        String seat = botColor == TeamColor.WHITE ? gameData.whiteUsername() : gameData.blackUsername();
+        if (seat != null && !seat.equals(BOT_USERNAME)) {
+            throw new AlreadyTakenException("A player holds the seat to move");
+        }
+        if (game.isOver()) {
+            throw new DoesNotExistException("Game is over");
+        }
+
+        if (!movingIn.add(gameData.gameID())) {
+            throw new AlreadyTakenException("The bot is already moving in this game");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> playMove(gameData, botColor), searchPool)
+                    .whenComplete((response, ex) -> movingIn.remove(gameData.gameID()));
+        } catch (RejectedExecutionException ex) {
+            movingIn.remove(gameData.gameID());
+            throw new ServerErrorException("Bot is busy, try again later");
+        }
+    }
+
+    private BotMoveResponse playMove(GameData snapshot, TeamColor botColor) {
+        long positionKey = snapshot.game().getZobristKey();
+        // a copy, so the stored game isn't changed unless the move is saved
+        ChessGame game = GameCodec.decode(GameCodec.encode(snapshot.game()));
+        SearchEngine engine = engines.poll();
+        if (engine == null) {
+            // every search thread holds one engine, so there is always one left
+            throw new IllegalStateException("No search engine free");
+        }
+        ChessMove move;
+        try {
+            move = engine.search(game, moveTimeMillis).bestMove();
+        } finally {
+            engines.add(engine);
+        }
+        try {
+            if (move == null) {
+                throw new DoesNotExistException("Game is over");
+            }
+            GameData current = gameDAO.getGame(snapshot.gameID());
+            if (current == null || current.game().getZobristKey() != positionKey
+                    || current.game().getTeamTurn() != botColor
+                    || !Objects.equals(current.whiteUsername(), snapshot.whiteUsername())
+                    || !Objects.equals(current.blackUsername(), snapshot.blackUsername())) {
+                throw new AlreadyTakenException("Game changed while the bot was thinking");
+            }
+            game.makeMove(move);
+            String white = botColor == TeamColor.WHITE ? BOT_USERNAME : current.whiteUsername();
+            String black = botColor == TeamColor.BLACK ? BOT_USERNAME : current.blackUsername();
+            gameDAO.updateGame(new GameData(current.gameID(), white, black, current.gameName(), game));
+            return new BotMoveResponse(move);
+        } catch (DoesNotExistException | AlreadyTakenException ex) {
+            throw new CompletionException(ex);
+        } catch (DataAccessException | InvalidMoveException ex) {
+            throw new CompletionException(new ServerErrorException(ex.getMessage()));
+        }
+    }
+
+    /**
+     * Stops the search threads, searches already running finish first
+     */
+    @Override
+    public void close() {
+        searchPool.shutdown();
+    }
+}
@@ -1,19 +1,32 @@
 package service;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 
 import chess.ChessGame;
 import chess.ChessGame.TeamColor;
 import dataaccess.AuthDAO;
 import dataaccess.DataAccessException;
 import dataaccess.GameDAO;
+import dataaccess.GameQuery;
 import model.GameData;
+import model.GameSummary;
 import service.request.GameCreateRequest;
 import service.request.GameJoinRequest;
+import service.request.GameListRequest;
 import service.result.GameCreateResponse;
 import service.result.GameListResponse;
 
 public class GameService {
+    /**
+     * Games in a page when the request doesn't say
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    /**
+     * Most games a single page may ask for
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
     private GameDAO gameDAO;
     private AuthDAO authDAO;
 
@@ -70,10 +83,42 @@ public class GameService {
 
     public GameListResponse list() throws ServerErrorException {
         try {
-            Collection<GameData> games = gameDAO.listGames();
-            return new GameListResponse(games.toArray(new GameData[0]));
+            return list(new GameListRequest(null, null, null, null, null));
+        } catch (DoesNotExistException ex) {
+            // the default page is always in range
+            throw new ServerErrorException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Lists one page of games, asking for one extra game to tell whether there is
+     * another page after it
+     *
+     * @throws DoesNotExistException if the cursor or limit is out of range
+     */
+    public GameListResponse list(GameListRequest gameListRequest)
+            throws DoesNotExistException, ServerErrorException {
+        int afterGameID = gameListRequest.afterGameID() == null ? 0 : gameListRequest.afterGameID();
+        int limit = gameListRequest.limit() == null ? DEFAULT_PAGE_SIZE : gameListRequest.limit();
+        if (afterGameID < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new DoesNotExistException("Invalid game list page");
+        }
+        GameQuery query = new GameQuery(afterGameID, limit + 1, Boolean.TRUE.equals(gameListRequest.openSeats()),
+                blankToNull(gameListRequest.player()), blankToNull(gameListRequest.namePrefix()));
+        try {
+            List<GameSummary> games = new ArrayList<>(gameDAO.listGameSummaries(query));
+            Integer nextAfterGameID = null;
+            if (games.size() > limit) {
+                games = games.subList(0, limit);
+                nextAfterGameID = games.get(limit - 1).gameID();
+            }
+            return new GameListResponse(games.toArray(new GameSummary[0]), nextAfterGameID);
         } catch (DataAccessException ex) {
             throw new ServerErrorException(ex.getMessage());
         }
     }
+
+    private static String blankToNull(String text) {
+        return text == null || text.isBlank() ? null : text;
+    }
 }
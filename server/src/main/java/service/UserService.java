@@ -24,7 +24,7 @@ public class UserService {
     public RegisterResult register(RegisterRequest registerRequest) throws AlreadyTakenException, ServerErrorException {
         try {
             UserData existingUser = userDAO.getUser(registerRequest.username());
-            if (existingUser != null) {
+            if (existingUser != null || BotService.BOT_USERNAME.equals(registerRequest.username())) {
                 throw new AlreadyTakenException("Username already taken");
             }
             String hashedPassword = BCrypt.hashpw(registerRequest.password(), BCrypt.gensalt());
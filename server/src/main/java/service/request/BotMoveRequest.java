@@ -0,0 +1,5 @@
+package service.request;
+
+public record BotMoveRequest(int gameID) {
+
+}
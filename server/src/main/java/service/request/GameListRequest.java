@@ -0,0 +1,13 @@
+package service.request;
+
+/**
+ * @param afterGameID list games after this ID, 0 or null for the first page
+ * @param limit       most games to list, null for the default page size
+ * @param openSeats   only list games with a free seat
+ * @param player      only list games this user is playing in
+ * @param namePrefix  only list games whose name starts with this
+ */
+public record GameListRequest(Integer afterGameID, Integer limit, Boolean openSeats, String player,
+        String namePrefix) {
+
+}
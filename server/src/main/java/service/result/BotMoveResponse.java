@@ -0,0 +1,7 @@
+package service.result;
+
+import chess.ChessMove;
+
+public record BotMoveResponse(ChessMove move) {
+
+}
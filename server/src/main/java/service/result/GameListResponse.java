@@ -1,7 +1,11 @@
 package service.result;
 
-import model.GameData;
+import model.GameSummary;
 
-public record GameListResponse(GameData[] games) {
+/**
+ * @param nextAfterGameID afterGameID to ask for to get the next page, or null
+ *                        on the last page
+ */
+public record GameListResponse(GameSummary[] games, Integer nextAfterGameID) {
 
-}
\ No newline at end of file
+}
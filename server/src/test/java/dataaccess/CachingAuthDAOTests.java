@@ -0,0 +1,141 @@
+package dataaccess;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.AuthData;
+
+public class CachingAuthDAOTests {
+
+    private CountingAuthDAO backing;
+    private long now;
+    private CachingAuthDAO authDAO;
+
+    @BeforeEach
+    public void setup() {
+        backing = new CountingAuthDAO();
+        now = 0;
+        authDAO = new CachingAuthDAO(backing, 2, Duration.ofSeconds(60), () -> now);
+    }
+
+    @Test
+    public void repeatLookupsAreServedFromMemory() throws DataAccessException {
+        AuthData session = newSession("user");
+        authDAO.createAuth(session);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(session, authDAO.getAuth(session.authToken()));
+        }
+        Assertions.assertEquals(0, backing.lookups);
+        Assertions.assertEquals(3, authDAO.hitCount());
+
+        // unknown tokens always go to the backing DAO and aren't remembered
+        String unknown = UUID.randomUUID().toString();
+        Assertions.assertNull(authDAO.getAuth(unknown));
+        Assertions.assertNull(authDAO.getAuth(unknown));
+        Assertions.assertEquals(2, backing.lookups);
+        Assertions.assertEquals(1, authDAO.size());
+    }
+
+    @Test
+    public void sessionsExpire() throws DataAccessException {
+        AuthData session = newSession("user");
+        backing.createAuth(session);
+        Assertions.assertEquals(session, authDAO.getAuth(session.authToken()));
+        now += Duration.ofSeconds(59).toNanos();
+        authDAO.getAuth(session.authToken());
+        Assertions.assertEquals(1, backing.lookups);
+
+        now += Duration.ofSeconds(1).toNanos();
+        Assertions.assertEquals(session, authDAO.getAuth(session.authToken()));
+        Assertions.assertEquals(2, backing.lookups);
+    }
+
+    @Test
+    public void deleteAndClearInvalidate() throws DataAccessException {
+        AuthData first = newSession("first");
+        AuthData second = newSession("second");
+        authDAO.createAuth(first);
+        authDAO.createAuth(second);
+
+        authDAO.deleteAuth(first.authToken());
+        Assertions.assertNull(authDAO.getAuth(first.authToken()));
+        Assertions.assertThrows(DataAccessException.class, () -> authDAO.deleteAuth(first.authToken()));
+
+        authDAO.clear();
+        Assertions.assertEquals(0, authDAO.size());
+        Assertions.assertNull(authDAO.getAuth(second.authToken()));
+    }
+
+    @Test
+    public void deleteDuringLookupIsNotCached() throws DataAccessException {
+        AuthData session = newSession("user");
+        backing.createAuth(session);
+        // the session is deleted after the backing DAO has read it
+        backing.afterLookup = () -> {
+            backing.afterLookup = null;
+            try {
+                authDAO.deleteAuth(session.authToken());
+            } catch (DataAccessException e) {
+                Assertions.fail(e);
+            }
+        };
+
+        Assertions.assertEquals(session, authDAO.getAuth(session.authToken()));
+        Assertions.assertEquals(0, authDAO.size());
+        Assertions.assertNull(authDAO.getAuth(session.authToken()));
+    }
+
+    @Test
+    public void expiredSessionsMakeRoomFirst() throws DataAccessException {
+        AuthData old = newSession("old");
+        authDAO.createAuth(old);
+        now += Duration.ofSeconds(60).toNanos();
+        AuthData first = newSession("first");
+        AuthData second = newSession("second");
+        authDAO.createAuth(first);
+        authDAO.createAuth(second);
+
+        Assertions.assertEquals(2, authDAO.size());
+        Assertions.assertEquals(first, authDAO.getAuth(first.authToken()));
+        Assertions.assertEquals(second, authDAO.getAuth(second.authToken()));
+        Assertions.assertEquals(0, backing.lookups);
+    }
+
+    @Test
+    public void staysWithinCapacity() throws DataAccessException {
+        for (int i = 0; i < 5; i++) {
+            authDAO.createAuth(newSession("user" + i));
+            Assertions.assertTrue(authDAO.size() <= 2);
+        }
+        // logging in and out over and over doesn't grow the cache either
+        for (int i = 0; i < 100; i++) {
+            AuthData session = newSession("churn");
+            authDAO.createAuth(session);
+            authDAO.deleteAuth(session.authToken());
+        }
+        Assertions.assertTrue(authDAO.size() <= 2);
+    }
+
+    private static AuthData newSession(String username) {
+        return new AuthData(UUID.randomUUID().toString(), username);
+    }
+
+    private static final class CountingAuthDAO extends MemoryAuthDAO {
+        private int lookups;
+        private Runnable afterLookup;
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            lookups++;
+            AuthData authData = super.getAuth(authToken);
+            if (afterLookup != null) {
+                afterLookup.run();
+            }
+            return authData;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package dataaccess;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConnectionPoolTests {
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void reusesReturnedConnections() throws SQLException {
+        pool = newPool(new ConnectionPool.Settings(0, 2, 100, 60_000, 1, 0, 0));
+        Connection first = pool.borrow();
+        first.setAutoCommit(false);
+        first.close();
+        Assertions.assertTrue(first.isClosed());
+        Assertions.assertThrows(SQLException.class, () -> first.setAutoCommit(true));
+
+        try (Connection second = pool.borrow()) {
+            Assertions.assertFalse(second.isClosed());
+            // the abandoned transaction was rolled back before reuse
+            Assertions.assertTrue(second.getAutoCommit());
+        }
+        Assertions.assertEquals(1, opened.size());
+        Assertions.assertTrue(opened.get(0).rolledBack);
+
+        ConnectionPool.Stats stats = pool.stats();
+        Assertions.assertEquals(2, stats.borrows());
+        Assertions.assertEquals(1, stats.created());
+        Assertions.assertEquals(1, stats.open());
+        Assertions.assertEquals(1, stats.idle());
+        Assertions.assertEquals(0, stats.borrowed());
+    }
+
+    @Test
+    public void borrowTimesOutAtMaxSize() throws SQLException {
+        pool = newPool(new ConnectionPool.Settings(0, 1, 50, 60_000, 1, 0, 0));
+        try (Connection held = pool.borrow()) {
+            Assertions.assertThrows(SQLException.class, pool::borrow);
+            Assertions.assertEquals(1, pool.stats().timeouts());
+        }
+        pool.borrow().close();
+        Assertions.assertEquals(1, opened.size());
+    }
+
+    @Test
+    public void deadIdleConnectionsAreReplaced() throws SQLException, InterruptedException {
+        pool = newPool(new ConnectionPool.Settings(0, 2, 100, 60_000, 1, 0, 0));
+        pool.borrow().close();
+        opened.get(0).valid = false;
+        // wait out the window in which a recently used connection isn't checked
+        Thread.sleep(600);
+
+        pool.borrow().close();
+        Assertions.assertEquals(2, opened.size());
+        Assertions.assertTrue(opened.get(0).closed);
+        Assertions.assertEquals(1, pool.stats().discarded());
+    }
+
+    @Test
+    public void housekeepingEvictsIdleAndReportsLeaks() throws SQLException, InterruptedException {
+        pool = newPool(new ConnectionPool.Settings(1, 3, 100, 1, 1, 1, 0));
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+        first.close();
+        Thread.sleep(10);
+
+        pool.housekeep();
+        ConnectionPool.Stats stats = pool.stats();
+        // the idle connection is over the minimum since one is still borrowed
+        Assertions.assertEquals(1, stats.open());
+        Assertions.assertEquals(0, stats.idle());
+        Assertions.assertEquals(1, stats.leaks());
+
+        second.close();
+        pool.housekeep();
+        Assertions.assertEquals(1, pool.stats().open(), "pool went below its minimum size");
+        Assertions.assertEquals(1, pool.stats().leaks());
+    }
+
+    @Test
+    public void cachesPreparedStatementsPerConnection() throws SQLException {
+        pool = newPool(new ConnectionPool.Settings(0, 1, 100, 60_000, 1, 0, 2));
+        String select = "SELECT id FROM game WHERE id=?";
+        PreparedStatement first;
+        try (Connection conn = pool.borrow(); PreparedStatement statement = conn.prepareStatement(select)) {
+            first = statement;
+            statement.setInt(1, 1);
+            // the same SQL while the first is still open gets a statement of its own
+            try (PreparedStatement overlapping = conn.prepareStatement(select)) {
+                Assertions.assertNotSame(statement, overlapping);
+            }
+        }
+        Assertions.assertTrue(first.isClosed());
+        Assertions.assertThrows(SQLException.class, () -> first.setInt(1, 2));
+
+        try (Connection conn = pool.borrow(); PreparedStatement statement = conn.prepareStatement(select)) {
+            Assertions.assertSame(first, statement);
+            // generated keys need a different statement
+            try (PreparedStatement insert = conn.prepareStatement(select, Statement.RETURN_GENERATED_KEYS)) {
+                Assertions.assertNotSame(statement, insert);
+            }
+        }
+        FakeConnection connection = opened.get(0);
+        Assertions.assertEquals(3, connection.prepared.size());
+        Assertions.assertEquals(1, connection.closedStatements, "only the overlapping statement closes");
+        Assertions.assertEquals(1, pool.stats().statementHits());
+        Assertions.assertEquals(3, pool.stats().statementMisses());
+
+        // a third statement pushes the least recently used one out of the cache
+        try (Connection conn = pool.borrow()) {
+            conn.prepareStatement("SELECT 1").close();
+        }
+        Assertions.assertEquals(2, connection.closedStatements);
+    }
+
+    @Test
+    public void cachedStatementsCloseTheirResults() throws SQLException {
+        pool = newPool(new ConnectionPool.Settings(0, 1, 100, 60_000, 1, 0, 2));
+        String insert = "INSERT INTO game (name) VALUES (?)";
+        ResultSet keys;
+        try (Connection conn = pool.borrow();
+                PreparedStatement statement = conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS)) {
+            statement.executeUpdate();
+            keys = statement.getGeneratedKeys();
+            ResultSet query = statement.executeQuery();
+            Assertions.assertFalse(keys.isClosed());
+            Assertions.assertFalse(query.isClosed());
+            // the borrower only ever sees the pooled connection
+            Assertions.assertSame(conn, statement.getConnection());
+            try (PreparedStatement overlapping = conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS)) {
+                Assertions.assertSame(conn, overlapping.getConnection());
+            }
+        }
+        Assertions.assertTrue(keys.isClosed());
+        Assertions.assertEquals(2, opened.get(0).closedResults);
+        Assertions.assertFalse(opened.get(0).closed);
+    }
+
+    @Test
+    public void uncachedStatementsHideThePhysicalConnection() throws SQLException {
+        pool = newPool(new ConnectionPool.Settings(0, 1, 100, 60_000, 1, 0, 0));
+        try (Connection conn = pool.borrow(); PreparedStatement statement = conn.prepareStatement("SELECT 1")) {
+            Assertions.assertSame(conn, statement.getConnection());
+        }
+    }
+
+    @Test
+    public void readsSettingsFromProperties() {
+        Properties props = new Properties();
+        props.setProperty("db.pool.maxSize", "4");
+        props.setProperty("db.pool.leakThresholdMillis", "0");
+        ConnectionPool.Settings settings = ConnectionPool.Settings.fromProperties(props);
+        Assertions.assertEquals(4, settings.maxSize());
+        Assertions.assertEquals(0, settings.leakThresholdMillis());
+        Assertions.assertEquals(2, settings.minSize());
+        Assertions.assertEquals(64, settings.statementCacheSize());
+
+        props.setProperty("db.pool.minSize", "5");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConnectionPool.Settings.fromProperties(props));
+    }
+
+    private ConnectionPool newPool(ConnectionPool.Settings settings) {
+        return new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            opened.add(fake);
+            return fake.proxy();
+        }, settings);
+    }
+
+    /**
+     * Just enough of a connection to track what the pool does to it
+     */
+    private static final class FakeConnection {
+        private boolean valid = true;
+        private boolean closed;
+        private boolean autoCommit = true;
+        private boolean rolledBack;
+        private final List<String> prepared = new ArrayList<>();
+        private int closedStatements;
+        private int closedResults;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> switch (method.getName()) {
+                        case "isValid" -> valid;
+                        case "isClosed" -> closed;
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rolledBack = true;
+                            yield null;
+                        }
+                        case "prepareStatement" -> {
+                            prepared.add((String) args[0]);
+                            yield statement();
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private PreparedStatement statement() {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closedStatements++;
+                            yield null;
+                        }
+                        case "executeQuery", "getGeneratedKeys" -> resultSet();
+                        case "executeUpdate" -> 1;
+                        default -> null;
+                    });
+        }
+
+        private ResultSet resultSet() {
+            boolean[] closed = new boolean[1];
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                closedResults++;
+                            }
+                            yield null;
+                        }
+                        case "isClosed" -> closed[0];
+                        default -> null;
+                    });
+        }
+    }
+}
@@ -10,6 +10,7 @@ import chess.ChessMove;
 import chess.ChessPosition;
 import chess.InvalidMoveException;
 import model.GameData;
+import model.GameSummary;
 
 public class GameDAOTests {
 
@@ -111,6 +112,49 @@ public class GameDAOTests {
         }
     }
 
+    @Test
+    public void listGameSummariesSuccess() {
+        try {
+            int openID = gameDAO.createGame(new GameData(0, "white1", null, "open", new ChessGame()));
+            int fullID = gameDAO.createGame(new GameData(0, "white2", "black2", "full", new ChessGame()));
+
+            GameSummary[] expected = {
+                    new GameSummary(openID, "white1", null, "open", GameSummary.Status.OPEN),
+                    new GameSummary(fullID, "white2", "black2", "full", GameSummary.Status.IN_PROGRESS)
+            };
+            Assertions.assertArrayEquals(expected, gameDAO.listGameSummaries(GameQuery.firstPage(10)).toArray());
+        } catch (DataAccessException e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void listGameSummariesFiltersAndPages() {
+        try {
+            int first = gameDAO.createGame(new GameData(0, "alice", null, "50%_off", new ChessGame()));
+            gameDAO.createGame(new GameData(0, "bob", "carol", "50 percent", new ChessGame()));
+            int third = gameDAO.createGame(new GameData(0, null, "alice", "50%_again", new ChessGame()));
+            // fool's mate, white is checkmated
+            ChessGame mated = ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+            gameDAO.createGame(new GameData(0, "dave", null, "finished", mated));
+
+            // finished games can't be joined even with a seat free
+            var open = gameDAO.listGameSummaries(new GameQuery(0, 10, true, null, null));
+            Assertions.assertEquals(2, open.size());
+            var alice = gameDAO.listGameSummaries(new GameQuery(0, 10, false, "alice", null));
+            Assertions.assertEquals(2, alice.size());
+            // wildcards in the prefix only match themselves
+            var named = gameDAO.listGameSummaries(new GameQuery(0, 10, false, null, "50%_"));
+            Assertions.assertEquals(2, named.size());
+
+            var page = gameDAO.listGameSummaries(new GameQuery(first, 1, false, "alice", null));
+            Assertions.assertEquals(1, page.size());
+            Assertions.assertEquals(third, page.iterator().next().gameID());
+        } catch (DataAccessException e) {
+            Assertions.fail(e);
+        }
+    }
+
     @Test
     public void listGamesFailure() {
         try {
@@ -0,0 +1,70 @@
+package dataaccess;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+
+public class GameEncodingTests {
+
+    // a game after 1. e4 as saved when the board was a grid of pieces
+    private static final String PIECE_GRID_JSON = """
+            {"currentTeamTurn":"BLACK","board":{"board":[\
+            [{"teamColor":"WHITE","type":"ROOK"},{"teamColor":"WHITE","type":"KNIGHT"},\
+            {"teamColor":"WHITE","type":"BISHOP"},{"teamColor":"WHITE","type":"QUEEN"},\
+            {"teamColor":"WHITE","type":"KING"},{"teamColor":"WHITE","type":"BISHOP"},\
+            {"teamColor":"WHITE","type":"KNIGHT"},{"teamColor":"WHITE","type":"ROOK"}],\
+            [{"teamColor":"WHITE","type":"PAWN"},{"teamColor":"WHITE","type":"PAWN"},\
+            {"teamColor":"WHITE","type":"PAWN"},{"teamColor":"WHITE","type":"PAWN"},null,\
+            {"teamColor":"WHITE","type":"PAWN"},{"teamColor":"WHITE","type":"PAWN"},\
+            {"teamColor":"WHITE","type":"PAWN"}],\
+            [null,null,null,null,null,null,null,null],\
+            [null,null,null,null,{"teamColor":"WHITE","type":"PAWN"},null,null,null],\
+            [null,null,null,null,null,null,null,null],\
+            [null,null,null,null,null,null,null,null],\
+            [{"teamColor":"BLACK","type":"PAWN"},{"teamColor":"BLACK","type":"PAWN"},\
+            {"teamColor":"BLACK","type":"PAWN"},{"teamColor":"BLACK","type":"PAWN"},\
+            {"teamColor":"BLACK","type":"PAWN"},{"teamColor":"BLACK","type":"PAWN"},\
+            {"teamColor":"BLACK","type":"PAWN"},{"teamColor":"BLACK","type":"PAWN"}],\
+            [{"teamColor":"BLACK","type":"ROOK"},{"teamColor":"BLACK","type":"KNIGHT"},\
+            {"teamColor":"BLACK","type":"BISHOP"},{"teamColor":"BLACK","type":"QUEEN"},\
+            {"teamColor":"BLACK","type":"KING"},{"teamColor":"BLACK","type":"BISHOP"},\
+            {"teamColor":"BLACK","type":"KNIGHT"},{"teamColor":"BLACK","type":"ROOK"}]]}}""";
+
+    @Test
+    public void readsBinaryAndReflectedJsonGames() throws DataAccessException, InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+
+        Assertions.assertEquals(game, SQLGameDAO.decodeGame(GameCodec.encode(game)));
+        byte[] legacy = new Gson().toJson(game).getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(game, SQLGameDAO.decodeGame(legacy));
+    }
+
+    @Test
+    public void readsPieceGridJsonGames() throws DataAccessException {
+        ChessGame game = SQLGameDAO.decodeGame(PIECE_GRID_JSON.getBytes(StandardCharsets.UTF_8));
+
+        ChessGame expected = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        Assertions.assertEquals(expected.toFen(), game.toFen());
+        Assertions.assertEquals(expected.getZobristKey(), game.getZobristKey());
+        Assertions.assertEquals(20, game.legalMoves(ChessGame.TeamColor.BLACK).size());
+    }
+
+    @Test
+    public void corruptGameFails() {
+        Assertions.assertThrows(DataAccessException.class, () -> SQLGameDAO.decodeGame(new byte[] { 7, 1, 2 }));
+        Assertions.assertThrows(DataAccessException.class,
+                () -> SQLGameDAO.decodeGame("{\"board\":".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertThrows(DataAccessException.class, () -> SQLGameDAO.decodeGame(
+                "{\"board\":{\"board\":[[{\"type\":\"PAWN\"}]]}}".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,195 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import dataaccess.AuthDAO;
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryGameDAO;
+import model.AuthData;
+import model.GameData;
+import service.request.BotMoveRequest;
+import service.request.GameJoinRequest;
+
+public class BotServiceTests {
+
+    private static final String AUTH_TOKEN = "token";
+
+    private static HookedGameDAO gameDAO;
+    private static AuthDAO authDAO;
+
+    private static BotService botService;
+
+    @BeforeAll
+    public static void init() {
+        gameDAO = new HookedGameDAO();
+        authDAO = new MemoryAuthDAO();
+
+        botService = new BotService(gameDAO, authDAO, 100, 1);
+    }
+
+    @BeforeEach
+    public void reset() {
+        try {
+            gameDAO.clear();
+            gameDAO.beforeRead(0, null);
+            authDAO.clear();
+            authDAO.createAuth(new AuthData(AUTH_TOKEN, "username"));
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void botMoveSuccess() {
+        try {
+            int gameID = gameDAO.createGame(new GameData(0, null, "username", "bot game", new ChessGame()));
+            ChessMove move = botService.move(new BotMoveRequest(gameID), AUTH_TOKEN).move();
+
+            GameData gameData = gameDAO.getGame(gameID);
+            ChessGame game = gameData.game();
+            Assertions.assertEquals(BotService.BOT_USERNAME, gameData.whiteUsername());
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+            Assertions.assertNull(game.getBoard().getPiece(move.getStartPosition()));
+            Assertions.assertNotNull(game.getBoard().getPiece(move.getEndPosition()));
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void botMoveFailure() {
+        Assertions.assertThrows(DoesNotExistException.class,
+                () -> botService.move(new BotMoveRequest(1234), AUTH_TOKEN));
+    }
+
+    @Test
+    public void botMoveOnlyForPlayers() {
+        try {
+            int gameID = gameDAO.createGame(new GameData(0, null, "other", "bot game", new ChessGame()));
+            Assertions.assertThrows(UnauthorizedException.class,
+                    () -> botService.move(new BotMoveRequest(gameID), AUTH_TOKEN));
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, gameDAO.getGame(gameID).game().getTeamTurn());
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void botMoveNotForHeldSeats() {
+        try {
+            int ownSeat = gameDAO.createGame(new GameData(0, "username", null, "bot game", new ChessGame()));
+            Assertions.assertThrows(AlreadyTakenException.class,
+                    () -> botService.move(new BotMoveRequest(ownSeat), AUTH_TOKEN));
+            int opponentSeat = gameDAO.createGame(new GameData(0, "other", "username", "game", new ChessGame()));
+            Assertions.assertThrows(AlreadyTakenException.class,
+                    () -> botService.move(new BotMoveRequest(opponentSeat), AUTH_TOKEN));
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void botKeepsItsSeat() {
+        try {
+            int gameID = gameDAO.createGame(new GameData(0, "username", null, "bot game", new ChessGame()));
+            ChessGame game = gameDAO.getGame(gameID).game();
+            game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5)));
+            gameDAO.updateGame(new GameData(gameID, "username", null, "bot game", game));
+
+            botService.move(new BotMoveRequest(gameID), AUTH_TOKEN);
+            game = gameDAO.getGame(gameID).game();
+            game.makeMove(game.legalMoves(ChessGame.TeamColor.WHITE).iterator().next());
+            gameDAO.updateGame(new GameData(gameID, "username", BotService.BOT_USERNAME, "bot game", game));
+
+            botService.move(new BotMoveRequest(gameID), AUTH_TOKEN);
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, gameDAO.getGame(gameID).game().getTeamTurn());
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void botMoveGameOver() {
+        try {
+            // fool's mate, white is checkmated
+            ChessGame game = ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+            int gameID = gameDAO.createGame(new GameData(0, null, "username", "bot game", game));
+            Assertions.assertThrows(DoesNotExistException.class,
+                    () -> botService.move(new BotMoveRequest(gameID), AUTH_TOKEN));
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void joinWhileBotThinks() {
+        try {
+            authDAO.createAuth(new AuthData("joiner token", "joiner"));
+            int gameID = gameDAO.createGame(new GameData(0, null, "username", "bot game", new ChessGame()));
+            // the first read checks the request, the second comes after the search
+            gameDAO.beforeRead(2, () -> {
+                try {
+                    new GameService(gameDAO, authDAO).join(new GameJoinRequest("WHITE", gameID), "joiner token");
+                } catch (Exception e) {
+                    Assertions.fail(e);
+                }
+            });
+
+            Assertions.assertThrows(AlreadyTakenException.class,
+                    () -> botService.move(new BotMoveRequest(gameID), AUTH_TOKEN));
+            GameData gameData = gameDAO.getGame(gameID);
+            Assertions.assertEquals("joiner", gameData.whiteUsername());
+            Assertions.assertEquals(new ChessGame(), gameData.game());
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void oneBotMoveAtATime() {
+        try {
+            int gameID = gameDAO.createGame(new GameData(0, null, "username", "bot game", new ChessGame()));
+            AtomicReference<Throwable> second = new AtomicReference<>();
+            gameDAO.beforeRead(2, () -> second.set(Assertions.assertThrows(AlreadyTakenException.class,
+                    () -> botService.moveAsync(new BotMoveRequest(gameID), AUTH_TOKEN))));
+
+            botService.move(new BotMoveRequest(gameID), AUTH_TOKEN);
+            Assertions.assertNotNull(second.get(), "second request wasn't made during the search");
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, gameDAO.getGame(gameID).game().getTeamTurn());
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    /**
+     * Runs a hook just before a chosen read of a game, to change the game while
+     * the bot is thinking
+     */
+    private static class HookedGameDAO extends MemoryGameDAO {
+        private int readsUntilHook;
+        private Runnable hook;
+
+        void beforeRead(int read, Runnable hook) {
+            this.readsUntilHook = read;
+            this.hook = hook;
+        }
+
+        @Override
+        public GameData getGame(int gameID) {
+            if (hook != null && --readsUntilHook == 0) {
+                Runnable run = hook;
+                hook = null;
+                run.run();
+            }
+            return super.getGame(gameID);
+        }
+    }
+}
@@ -14,11 +14,17 @@ import dataaccess.MemoryAuthDAO;
 import dataaccess.MemoryGameDAO;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import service.request.GameCreateRequest;
 import service.request.GameJoinRequest;
+import service.request.GameListRequest;
+import service.result.GameListResponse;
 
 public class GameServiceTests {
 
+    // fool's mate, white is checkmated
+    private static final String FOOLS_MATE = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3";
+
     private static GameDAO gameDAO;
     private static AuthDAO authDAO;
 
@@ -53,10 +59,10 @@ public class GameServiceTests {
             int id2 = gameDAO.createGame(new GameData(0, "username", "username", "game 2", new ChessGame()));
             int id3 = gameDAO.createGame(new GameData(0, "username", "username", "game 3", new ChessGame()));
 
-            GameData[] expected = new GameData[] {
-                    new GameData(id1, "username", "username", "game 1", new ChessGame()),
-                    new GameData(id2, "username", "username", "game 2", new ChessGame()),
-                    new GameData(id3, "username", "username", "game 3", new ChessGame())
+            GameSummary[] expected = new GameSummary[] {
+                    new GameSummary(id1, "username", "username", "game 1", GameSummary.Status.IN_PROGRESS),
+                    new GameSummary(id2, "username", "username", "game 2", GameSummary.Status.IN_PROGRESS),
+                    new GameSummary(id3, "username", "username", "game 3", GameSummary.Status.IN_PROGRESS)
             };
 
             Assertions.assertArrayEquals(expected, gameService.list().games());
@@ -65,10 +71,89 @@ public class GameServiceTests {
         }
     }
 
+    @Test
+    public void listGamesShowsStatus() {
+        try {
+            int open = gameDAO.createGame(new GameData(0, "username", null, "open", new ChessGame()));
+            int finished = gameDAO.createGame(
+                    new GameData(0, "white", "black", "finished", ChessGame.fromFen(FOOLS_MATE)));
+
+            GameSummary[] expected = new GameSummary[] {
+                    new GameSummary(open, "username", null, "open", GameSummary.Status.OPEN),
+                    new GameSummary(finished, "white", "black", "finished", GameSummary.Status.FINISHED)
+            };
+            Assertions.assertArrayEquals(expected, gameService.list().games());
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void listGamesPages() {
+        try {
+            int[] ids = new int[5];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = gameDAO.createGame(new GameData(0, null, null, "game " + i, new ChessGame()));
+            }
+            // joining moves a game to the end of the memory DAO's list
+            gameDAO.updateGame(new GameData(ids[0], "white", null, "game 0", new ChessGame()));
+
+            GameListResponse first = gameService.list(new GameListRequest(null, 2, null, null, null));
+            Assertions.assertEquals(ids[0], first.games()[0].gameID());
+            Assertions.assertEquals(ids[1], first.games()[1].gameID());
+            Assertions.assertEquals(ids[1], first.nextAfterGameID());
+
+            GameListResponse second = gameService
+                    .list(new GameListRequest(first.nextAfterGameID(), 2, null, null, null));
+            Assertions.assertEquals(ids[2], second.games()[0].gameID());
+            Assertions.assertEquals(ids[3], second.nextAfterGameID());
+
+            GameListResponse last = gameService
+                    .list(new GameListRequest(second.nextAfterGameID(), 2, null, null, null));
+            Assertions.assertEquals(1, last.games().length);
+            Assertions.assertNull(last.nextAfterGameID());
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void listGamesFilters() {
+        try {
+            int open = gameDAO.createGame(new GameData(0, "alice", null, "lobby one", new ChessGame()));
+            int full = gameDAO.createGame(new GameData(0, "bob", "alice", "lobby two", new ChessGame()));
+            gameDAO.createGame(new GameData(0, "bob", "carol", "other", new ChessGame()));
+
+            // a finished game with a free seat can't be joined any more
+            gameDAO.createGame(new GameData(0, "alice", null, "lobby done", ChessGame.fromFen(FOOLS_MATE)));
+
+            GameSummary[] openSeats = gameService.list(new GameListRequest(null, null, true, null, null)).games();
+            Assertions.assertEquals(1, openSeats.length);
+            Assertions.assertEquals(open, openSeats[0].gameID());
+
+            GameSummary[] alice = gameService.list(new GameListRequest(null, null, null, "alice", "lobby")).games();
+            Assertions.assertEquals(3, alice.length);
+            Assertions.assertEquals(full, alice[1].gameID());
+
+            GameSummary[] carol = gameService.list(new GameListRequest(null, null, null, "carol", "lobby")).games();
+            Assertions.assertEquals(0, carol.length);
+        } catch (Exception e) {
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void listGamesRejectsBadPage() {
+        Assertions.assertThrows(DoesNotExistException.class,
+                () -> gameService.list(new GameListRequest(-1, null, null, null, null)));
+        Assertions.assertThrows(DoesNotExistException.class,
+                () -> gameService.list(new GameListRequest(null, GameService.MAX_PAGE_SIZE + 1, null, null, null)));
+    }
+
     @Test
     public void listGamesFailure() {
         try {
-            GameData[] games = gameService.list().games();
+            GameSummary[] games = gameService.list().games();
             Assertions.assertNotNull(games);
             Assertions.assertEquals(0, games.length);
         } catch (Exception e) {
@@ -118,5 +203,4 @@ public class GameServiceTests {
             Assertions.fail(e);
         }
     }
-
 }
@@ -0,0 +1,217 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Helpers for working with 64-bit square sets
+ * <p>
+ * Squares are numbered 0-63 starting at row 1, column 1 (a1) and moving across
+ * each row before moving up to the next, so bit {@code n} of a bitboard is set
+ * when square {@code n} is a member of the set.
+ */
+final class Bitboards {
+
+    static final int SQUARES = ChessBoard.BOARD_ROWS * ChessBoard.BOARD_COLS;
+    static final int PIECE_TYPES = PieceType.values().length;
+    static final int PIECE_KINDS = TeamColor.values().length * PIECE_TYPES;
+
+    private static final TeamColor[] COLORS = TeamColor.values();
+    private static final PieceType[] TYPES = PieceType.values();
+
+    // ray directions, the first four run toward higher square indices and the
+    // opposite of each direction is four further on
+    static final int NORTH = 0;
+    static final int NORTH_EAST = 1;
+    static final int EAST = 2;
+    static final int NORTH_WEST = 3;
+    static final int SOUTH = 4;
+    static final int SOUTH_WEST = 5;
+    static final int WEST = 6;
+    static final int SOUTH_EAST = 7;
+    static final int DIRECTIONS = 8;
+
+    // {row, column} step for each ray direction
+    private static final int[][] DIRECTION_STEPS = { { 1, 0 }, { 1, 1 }, { 0, 1 }, { 1, -1 }, { -1, 0 },
+            { -1, -1 }, { 0, -1 }, { -1, 1 } };
+    private static final int[][] KNIGHT_STEPS = { { 2, 1 }, { 1, 2 }, { -1, 2 }, { -2, 1 }, { -2, -1 },
+            { -1, -2 }, { 1, -2 }, { 2, -1 } };
+
+    /**
+     * Squares a knight on each square can jump to
+     */
+    static final long[] KNIGHT_ATTACKS = new long[SQUARES];
+
+    /**
+     * Squares a king on each square can step to
+     */
+    static final long[] KING_ATTACKS = new long[SQUARES];
+
+    /**
+     * Squares a pawn of each team (by TeamColor ordinal) on each square captures
+     * on
+     */
+    static final long[][] PAWN_ATTACKS = new long[COLORS.length][SQUARES];
+
+    /**
+     * Every square from each square to the edge of the board in each direction,
+     * not including the starting square
+     */
+    static final long[][] RAYS = new long[DIRECTIONS][SQUARES];
+
+    /**
+     * Squares strictly between two squares that share a row, column or diagonal,
+     * or no squares if they don't
+     */
+    static final long[][] BETWEEN = new long[SQUARES][SQUARES];
+
+    /**
+     * Every square on the row, column or diagonal through two squares, edge to
+     * edge, or no squares if they don't share one
+     */
+    static final long[][] LINE = new long[SQUARES][SQUARES];
+
+    static {
+        for (int square = 0; square < SQUARES; square++) {
+            int row = row(square);
+            int col = column(square);
+            for (int[] step : KNIGHT_STEPS) {
+                KNIGHT_ATTACKS[square] |= stepTarget(row + step[0], col + step[1]);
+            }
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                int[] step = DIRECTION_STEPS[direction];
+                KING_ATTACKS[square] |= stepTarget(row + step[0], col + step[1]);
+
+                int rayRow = row + step[0];
+                int rayCol = col + step[1];
+                while (isOnBoard(rayRow, rayCol)) {
+                    int target = square(rayRow, rayCol);
+                    BETWEEN[square][target] = RAYS[direction][square];
+                    RAYS[direction][square] |= bit(target);
+                    rayRow += step[0];
+                    rayCol += step[1];
+                }
+            }
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                long line = RAYS[direction][square] | RAYS[(direction + DIRECTIONS / 2) % DIRECTIONS][square]
+                        | bit(square);
+                for (long targets = RAYS[direction][square]; targets != 0; targets &= targets - 1) {
+                    LINE[square][Long.numberOfTrailingZeros(targets)] = line;
+                }
+            }
+            PAWN_ATTACKS[TeamColor.WHITE.ordinal()][square] = stepTarget(row + 1, col - 1)
+                    | stepTarget(row + 1, col + 1);
+            PAWN_ATTACKS[TeamColor.BLACK.ordinal()][square] = stepTarget(row - 1, col - 1)
+                    | stepTarget(row - 1, col + 1);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    private static long stepTarget(int row, int col) {
+        return isOnBoard(row, col) ? bit(square(row, col)) : 0L;
+    }
+
+    /**
+     * Finds the squares a slider reaches along one ray, stopping at and
+     * including the first occupied square
+     *
+     * @param direction one of the ray direction constants
+     * @param square    the square the slider is on
+     * @param occupied  every occupied square on the board
+     * @return squares that can be moved to or captured on along the ray
+     */
+    static long rayAttacks(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            // the nearest blocker is the lowest set bit for rays toward higher
+            // squares and the highest set bit otherwise
+            int blocker = direction < SOUTH ? Long.numberOfTrailingZeros(blockers)
+                    : 63 - Long.numberOfLeadingZeros(blockers);
+            ray ^= RAYS[direction][blocker];
+        }
+        return ray;
+    }
+
+    /**
+     * Walks the four straight rays, used to build and check the magic tables
+     */
+    static long rookRayAttacks(int square, long occupied) {
+        return rayAttacks(NORTH, square, occupied) | rayAttacks(EAST, square, occupied)
+                | rayAttacks(SOUTH, square, occupied) | rayAttacks(WEST, square, occupied);
+    }
+
+    /**
+     * Walks the four diagonal rays, used to build and check the magic tables
+     */
+    static long bishopRayAttacks(int square, long occupied) {
+        return rayAttacks(NORTH_EAST, square, occupied) | rayAttacks(NORTH_WEST, square, occupied)
+                | rayAttacks(SOUTH_EAST, square, occupied) | rayAttacks(SOUTH_WEST, square, occupied);
+    }
+
+    /**
+     * @return the square index for a 1-based row and column
+     */
+    static int square(int row, int col) {
+        return (row - 1) * ChessBoard.BOARD_COLS + (col - 1);
+    }
+
+    /**
+     * @return the square index of the given position
+     */
+    static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square index
+     */
+    static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square index
+     */
+    static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return whether the 1-based row and column lie on the board
+     */
+    static boolean isOnBoard(int row, int col) {
+        return row > 0 && row <= ChessBoard.BOARD_ROWS && col > 0 && col <= ChessBoard.BOARD_COLS;
+    }
+
+    /**
+     * @return a bitboard with only the given square set
+     */
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Identifies one of the twelve colored piece kinds, which is used to index the
+     * per-piece bitboards
+     *
+     * @return index in the range 0-11
+     */
+    static int pieceIndex(TeamColor color, PieceType type) {
+        return color.ordinal() * PIECE_TYPES + type.ordinal();
+    }
+
+    static TeamColor colorOf(int pieceIndex) {
+        return COLORS[pieceIndex / PIECE_TYPES];
+    }
+
+    static PieceType typeOf(int pieceIndex) {
+        return TYPES[pieceIndex % PIECE_TYPES];
+    }
+
+    static TeamColor opponent(TeamColor color) {
+        return color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+}
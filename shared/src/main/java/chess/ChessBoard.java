@@ -1,23 +1,128 @@
 package chess;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.RebuildingAdapterFactory.class)
 public class ChessBoard {
 
     public static final int BOARD_ROWS = 8;
     public static final int BOARD_COLS = 8;
-    private ChessPiece[][] board;
+
+    private static final PieceType[] BACK_ROW = new PieceType[] { PieceType.ROOK, PieceType.KNIGHT,
+            PieceType.BISHOP, PieceType.QUEEN, PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK };
+    // board text and FEN symbols indexed by piece index, upper case for white
+    static final String PIECE_SYMBOLS = "KQBNRPkqbnrp";
+
+    // one bitboard for each colored piece kind, indexed by Bitboards.pieceIndex
+    private long[] pieceBitboards;
+    // castling moves still allowed, a set of the CASTLE_ bits
+    private int castlingRights;
+    // square a pawn that just moved two squares skipped over, or NO_SQUARE
+    private int enPassantSquare;
+
+    // everything below is worked out from the piece bitboards, so it isn't
+    // serialized and is rebuilt when a board is read back
+
+    // squares occupied by each team, indexed by TeamColor ordinal
+    private transient long[] colorBitboards;
+    private transient long occupied;
+    // piece index + 1 for each square, 0 when the square is empty
+    private transient byte[] squares;
+    // Zobrist key of the pieces on the board, kept up to date as pieces move
+    private transient long zobristKey;
+    // evaluation terms kept up to date as pieces move, positive when white is
+    // ahead
+    private transient int materialScore;
+    private transient int pieceSquareScore;
+
+    // undo records for moves made with makeMove, most recent last
+    private transient long[] undoStack;
+    private transient int undoCount;
+
+    // undo record layout, the moved piece is kept so that promotions can be
+    // reverted
+    private static final int UNDO_FROM_SHIFT = 0;
+    private static final int UNDO_TO_SHIFT = 6;
+    private static final int UNDO_MOVED_SHIFT = 12;
+    private static final int UNDO_CAPTURED_SHIFT = 16;
+    private static final int UNDO_CASTLING_SHIFT = 20;
+    private static final int UNDO_EN_PASSANT_SHIFT = 24;
+    private static final int UNDO_SQUARE_MASK = 0x3F;
+    private static final int UNDO_PIECE_MASK = 0xF;
+    private static final int UNDO_EN_PASSANT_MASK = 0x7F;
+    private static final int INITIAL_UNDO_CAPACITY = 64;
+
+
+    /**
+     * Marks a square that doesn't exist, such as the en passant square when the
+     * last move wasn't a double pawn push
+     */
+    static final int NO_SQUARE = -1;
+
+    // castling rights, the bit for each castle is 1 << its index in the
+    // CASTLE_ square tables
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+    static final int CASTLES = 4;
+
+    // where the king and rook start and end for each castle
+    static final int[] CASTLE_KING_FROM = { Bitboards.square(1, 5), Bitboards.square(1, 5),
+            Bitboards.square(BOARD_ROWS, 5), Bitboards.square(BOARD_ROWS, 5) };
+    static final int[] CASTLE_KING_TO = { Bitboards.square(1, 7), Bitboards.square(1, 3),
+            Bitboards.square(BOARD_ROWS, 7), Bitboards.square(BOARD_ROWS, 3) };
+    static final int[] CASTLE_ROOK_FROM = { Bitboards.square(1, 8), Bitboards.square(1, 1),
+            Bitboards.square(BOARD_ROWS, 8), Bitboards.square(BOARD_ROWS, 1) };
+    static final int[] CASTLE_ROOK_TO = { Bitboards.square(1, 6), Bitboards.square(1, 4),
+            Bitboards.square(BOARD_ROWS, 6), Bitboards.square(BOARD_ROWS, 4) };
+
+    // castling rights that survive a move from or to each square, moving a king or
+    // rook or capturing a rook on its starting square loses the matching rights
+    private static final int[] CASTLING_KEPT = new int[Bitboards.SQUARES];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, ALL_CASTLING);
+        for (int castle = 0; castle < CASTLES; castle++) {
+            CASTLING_KEPT[CASTLE_KING_FROM[castle]] &= ~(1 << castle);
+            CASTLING_KEPT[CASTLE_ROOK_FROM[castle]] &= ~(1 << castle);
+        }
+    }
 
     public ChessBoard() {
-        this.board = new ChessPiece[ChessBoard.BOARD_ROWS][ChessBoard.BOARD_COLS];
+        this.pieceBitboards = new long[Bitboards.PIECE_KINDS];
+        this.colorBitboards = new long[TeamColor.values().length];
+        this.occupied = 0L;
+        this.squares = new byte[Bitboards.SQUARES];
+        this.zobristKey = 0L;
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.materialScore = 0;
+        this.pieceSquareScore = 0;
+        this.undoStack = new long[INITIAL_UNDO_CAPACITY];
+        this.undoCount = 0;
     }
 
     /**
@@ -27,7 +132,19 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow() - 1][position.getColumn() - 1] = piece;
+        int square = Bitboards.square(position);
+        clearSquare(square);
+        if (piece != null) {
+            placePiece(square, Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
+    }
+
+    /**
+     * Adds a piece by square and piece index, replacing anything already there
+     */
+    void addPiece(int square, int pieceIndex) {
+        clearSquare(square);
+        placePiece(square, pieceIndex);
     }
 
     /**
@@ -38,19 +155,18 @@ public class ChessBoard {
      *         position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return board[position.getRow() - 1][position.getColumn() - 1];
+        int pieceIndex = pieceAt(Bitboards.square(position));
+        if (pieceIndex < 0) {
+            return null;
+        }
+        return ChessPiece.of(pieceIndex);
     }
 
     public Collection<ChessPosition> getAllPiecePositions() {
-        ArrayList<ChessPosition> piecePositions = new ArrayList<>();
-        ChessPosition position;
-        for (int row = 1; row <= ChessBoard.BOARD_ROWS; row++) {
-            for (int col = 1; col <= ChessBoard.BOARD_COLS; col++) {
-                position = new ChessPosition(row, col);
-                if (getPiece(position) != null) {
-                    piecePositions.add(position);
-                }
-            }
+        ArrayList<ChessPosition> piecePositions = new ArrayList<>(Long.bitCount(occupied));
+        for (long remaining = occupied; remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            piecePositions.add(ChessPosition.of(square));
         }
         return piecePositions;
     }
@@ -61,27 +177,145 @@ public class ChessBoard {
      * @param position The position to remove the piece from
      */
     public void removePiece(ChessPosition position) {
-        ChessPiece piece = getPiece(position);
-        if (piece == null) {
-            return;
-        }
-        addPiece(position, null);
+        clearSquare(Bitboards.square(position));
     }
 
     /**
      * Moves a chess piece from one position to another
-     * 
-     * 
+     * <p>
+     * A king moving two squares castles, taking the rook with it, and a pawn
+     * moving onto the en passant square captures the pawn that skipped over it.
+     * Castling rights and the en passant square are updated to match.
      */
     public void movePiece(ChessMove move) {
-        ChessPiece piece = this.getPiece(move.getStartPosition());
-        if (move.getPromotionPiece() != null) {
-            piece = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
+        applyMove(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    /**
+     * Makes a move on this board in place, recording what is needed to take it
+     * back with {@link #unmakeMove()}. Moves made this way must be undone in the
+     * reverse order they were made.
+     *
+     * @param move the move to make
+     */
+    public void makeMove(ChessMove move) {
+        makeMove(Move.fromChessMove(move));
+    }
+
+    /**
+     * Makes a move encoded by {@link Move}, see {@link #makeMove(ChessMove)}
+     *
+     * @param move the encoded move to make
+     */
+    void makeMove(int move) {
+        long record = applyMove(Move.from(move), Move.to(move), Move.promotion(move));
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+        }
+        undoStack[undoCount++] = record;
+    }
+
+    /**
+     * Moves a piece along with any rook it castles with or pawn it captures en
+     * passant
+     *
+     * @param promotion the type to promote to, or null for no promotion
+     * @return an undo record for the move
+     */
+    private long applyMove(int from, int to, PieceType promotion) {
+        int movedIndex = pieceAt(from);
+        int previousEnPassant = enPassantSquare;
+        // record the move even if there was nothing to move so that every make is
+        // paired with exactly one unmake
+        long record = ((long) from << UNDO_FROM_SHIFT) | ((long) to << UNDO_TO_SHIFT)
+                | ((long) (movedIndex + 1) << UNDO_MOVED_SHIFT)
+                | ((long) (pieceAt(to) + 1) << UNDO_CAPTURED_SHIFT)
+                | ((long) castlingRights << UNDO_CASTLING_SHIFT)
+                | ((long) (previousEnPassant + 1) << UNDO_EN_PASSANT_SHIFT);
+        setEnPassantSquare(NO_SQUARE);
+        if (movedIndex < 0) {
+            return record;
+        }
+
+        clearSquare(from);
+        clearSquare(to);
+        PieceType type = Bitboards.typeOf(movedIndex);
+        if (type == PieceType.PAWN) {
+            if (to == previousEnPassant && Bitboards.column(from) != Bitboards.column(to)) {
+                clearSquare(enPassantVictim(from, to));
+            } else if (Math.abs(to - from) == 2 * BOARD_COLS) {
+                int skipped = (from + to) / 2;
+                if (isEnPassantCapturable(skipped, Bitboards.colorOf(movedIndex))) {
+                    setEnPassantSquare(skipped);
+                }
+            }
+        } else if (type == PieceType.KING && Math.abs(to - from) == 2) {
+            // castling, the rook jumps over the king to the square it skipped
+            int rookIndex = clearSquare(castleRookFrom(from, to));
+            if (rookIndex >= 0) {
+                placePiece((from + to) / 2, rookIndex);
+            }
+        }
+
+        int placedIndex = movedIndex;
+        if (promotion != null) {
+            placedIndex = Bitboards.pieceIndex(Bitboards.colorOf(movedIndex), promotion);
+        }
+        placePiece(to, placedIndex);
+        setCastlingRights(castlingRights & CASTLING_KEPT[from] & CASTLING_KEPT[to]);
+        return record;
+    }
+
+    /**
+     * Takes back the most recent move made with {@link #makeMove(ChessMove)},
+     * restoring any captured piece, undoing any promotion or castle and bringing
+     * back the castling rights and en passant square from before it
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        long record = undoStack[--undoCount];
+        int movedIndex = (int) (record >>> UNDO_MOVED_SHIFT & UNDO_PIECE_MASK) - 1;
+        int previousEnPassant = (int) (record >>> UNDO_EN_PASSANT_SHIFT & UNDO_EN_PASSANT_MASK) - 1;
+        if (movedIndex >= 0) {
+            int from = (int) (record >>> UNDO_FROM_SHIFT & UNDO_SQUARE_MASK);
+            int to = (int) (record >>> UNDO_TO_SHIFT & UNDO_SQUARE_MASK);
+            int capturedIndex = (int) (record >>> UNDO_CAPTURED_SHIFT & UNDO_PIECE_MASK) - 1;
+
+            // a promoted piece goes back to being the pawn that was moved
+            clearSquare(to);
+            placePiece(from, movedIndex);
+            if (capturedIndex >= 0) {
+                placePiece(to, capturedIndex);
+            }
+            PieceType type = Bitboards.typeOf(movedIndex);
+            if (type == PieceType.PAWN && to == previousEnPassant && Bitboards.column(from) != Bitboards.column(to)) {
+                placePiece(enPassantVictim(from, to),
+                        Bitboards.pieceIndex(Bitboards.opponent(Bitboards.colorOf(movedIndex)), PieceType.PAWN));
+            } else if (type == PieceType.KING && Math.abs(to - from) == 2) {
+                int rookIndex = clearSquare((from + to) / 2);
+                if (rookIndex >= 0) {
+                    placePiece(castleRookFrom(from, to), rookIndex);
+                }
+            }
         }
-        // pick up the piece and place it in the new location, removing the piece
-        // already there if there is already one
-        this.removePiece(move.getStartPosition());
-        this.addPiece(move.getEndPosition(), piece);
+        setCastlingRights((int) (record >>> UNDO_CASTLING_SHIFT & UNDO_PIECE_MASK));
+        setEnPassantSquare(previousEnPassant);
+    }
+
+    /**
+     * @return the square of the pawn captured by an en passant capture, which is
+     *         beside the capturing pawn rather than on the square it moves to
+     */
+    private static int enPassantVictim(int from, int to) {
+        return Bitboards.square(Bitboards.row(from), Bitboards.column(to));
+    }
+
+    private static int castleRookFrom(int kingFrom, int kingTo) {
+        return kingTo > kingFrom ? Bitboards.square(Bitboards.row(kingFrom), BOARD_COLS)
+                : Bitboards.square(Bitboards.row(kingFrom), 1);
     }
 
     /**
@@ -89,44 +323,330 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        // create a new board
-        this.board = new ChessPiece[ChessBoard.BOARD_ROWS][ChessBoard.BOARD_COLS];
+        // clear the board
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorBitboards, 0L);
+        Arrays.fill(squares, (byte) 0);
+        occupied = 0L;
+        zobristKey = 0L;
+        castlingRights = ALL_CASTLING;
+        enPassantSquare = NO_SQUARE;
+        materialScore = 0;
+        pieceSquareScore = 0;
+        undoCount = 0;
 
         // add pieces for both teams
-        for (ChessGame.TeamColor teamColor : ChessGame.TeamColor.values()) {
-            boolean isWhite = teamColor == ChessGame.TeamColor.WHITE;
-            int row = isWhite ? 0 : ChessBoard.BOARD_ROWS - 1;
-
-            // rooks
-            board[row][0] = new ChessPiece(teamColor, ChessPiece.PieceType.ROOK);
-            board[row][ChessBoard.BOARD_COLS - 1] = new ChessPiece(teamColor, ChessPiece.PieceType.ROOK);
-
-            // knights
-            board[row][1] = new ChessPiece(teamColor, ChessPiece.PieceType.KNIGHT);
-            board[row][ChessBoard.BOARD_COLS - 1 - 1] = new ChessPiece(teamColor, ChessPiece.PieceType.KNIGHT);
-
-            // bishops
-            board[row][2] = new ChessPiece(teamColor, ChessPiece.PieceType.BISHOP);
-            board[row][ChessBoard.BOARD_COLS - 1 - 2] = new ChessPiece(teamColor, ChessPiece.PieceType.BISHOP);
-
-            // royalty
-            board[row][3] = new ChessPiece(teamColor, ChessPiece.PieceType.QUEEN);
-            board[row][ChessBoard.BOARD_COLS - 1 - 3] = new ChessPiece(teamColor, ChessPiece.PieceType.KING);
-
-            // pawns
-            row += isWhite ? 1 : -1;
-            for (int i = 0; i < ChessBoard.BOARD_COLS; i++) {
-                board[row][i] = new ChessPiece(teamColor, ChessPiece.PieceType.PAWN);
+        for (TeamColor teamColor : TeamColor.values()) {
+            boolean isWhite = teamColor == TeamColor.WHITE;
+            int row = isWhite ? 1 : ChessBoard.BOARD_ROWS;
+            int pawnRow = isWhite ? 2 : ChessBoard.BOARD_ROWS - 1;
+
+            for (int col = 1; col <= ChessBoard.BOARD_COLS; col++) {
+                placePiece(Bitboards.square(row, col), Bitboards.pieceIndex(teamColor, BACK_ROW[col - 1]));
+                placePiece(Bitboards.square(pawnRow, col), Bitboards.pieceIndex(teamColor, PieceType.PAWN));
             }
         }
     }
 
+    /**
+     * Gets a 64-bit Zobrist hash of the pieces on the board along with the
+     * castling rights and en passant square. The key is updated incrementally
+     * whenever a piece is added, removed or moved, so reading it is constant time.
+     *
+     * @return the Zobrist key of the board
+     */
+    public long getZobristKey() {
+        long key = zobristKey ^ Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare != NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT_COLUMN[Bitboards.column(enPassantSquare) - 1];
+        }
+        return key;
+    }
+
+    /**
+     * @return the castling moves still allowed, a set of the castle bits
+     */
+    int castlingRights() {
+        return castlingRights;
+    }
+
+    void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights;
+    }
+
+    /**
+     * @return the square a pawn that just moved two squares skipped over, or
+     *         {@link #NO_SQUARE}
+     */
+    int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    void setEnPassantSquare(int enPassantSquare) {
+        this.enPassantSquare = enPassantSquare;
+    }
+
+    /**
+     * Checks whether an opposing pawn stands ready to take en passant on the
+     * square a pawn just skipped. The en passant square is only remembered when
+     * one does, so positions that differ by a capture nobody can make still
+     * match.
+     *
+     * @param mover the team whose pawn skipped the square
+     */
+    boolean isEnPassantCapturable(int skipped, TeamColor mover) {
+        // a pawn of the moving team on the skipped square would attack exactly
+        // the squares an opposing pawn could take from
+        return (Bitboards.PAWN_ATTACKS[mover.ordinal()][skipped]
+                & pieces(Bitboards.opponent(mover), PieceType.PAWN)) != 0;
+    }
+
+    /**
+     * Works out castling rights from where the pieces stand, allowing every castle
+     * whose king and rook are still on their starting squares. Used when a board
+     * was set up by hand and so has no move history to go on.
+     */
+    void inferCastlingRights() {
+        int rights = 0;
+        for (int castle = 0; castle < CASTLES; castle++) {
+            TeamColor color = castle < 2 ? TeamColor.WHITE : TeamColor.BLACK;
+            if (pieceAt(CASTLE_KING_FROM[castle]) == Bitboards.pieceIndex(color, PieceType.KING)
+                    && pieceAt(CASTLE_ROOK_FROM[castle]) == Bitboards.pieceIndex(color, PieceType.ROOK)) {
+                rights |= 1 << castle;
+            }
+        }
+        setCastlingRights(rights);
+    }
+
+    /**
+     * Determines if any piece of the given team could capture on a square
+     *
+     * @param position the square to check
+     * @param attacker the team that may be attacking the square
+     * @return true if the square is attacked by the team
+     */
+    public boolean isSquareAttacked(ChessPosition position, TeamColor attacker) {
+        return isSquareAttacked(Bitboards.square(position), attacker);
+    }
+
+    boolean isSquareAttacked(int square, TeamColor attacker) {
+        return isSquareAttacked(square, attacker, occupied);
+    }
+
+    /**
+     * Looks outward from the square for each way a piece of the attacking team
+     * could reach it using the precomputed attack tables, without generating any
+     * moves. Sliders are blocked as if only the given squares were occupied, which
+     * lets a king test where it is going without its own body shielding it.
+     */
+    boolean isSquareAttacked(int square, TeamColor attacker, long occupied) {
+        // a pawn attacks this square if a defending pawn here would attack it back
+        long attackingPawns = Bitboards.PAWN_ATTACKS[Bitboards.opponent(attacker).ordinal()][square];
+        if ((attackingPawns & pieces(attacker, PieceType.PAWN)) != 0
+                || (Bitboards.KNIGHT_ATTACKS[square] & pieces(attacker, PieceType.KNIGHT)) != 0
+                || (Bitboards.KING_ATTACKS[square] & pieces(attacker, PieceType.KING)) != 0) {
+            return true;
+        }
+
+        long queens = pieces(attacker, PieceType.QUEEN);
+        long straightSliders = pieces(attacker, PieceType.ROOK) | queens;
+        if (straightSliders != 0 && (MagicBitboards.rookAttacks(square, occupied) & straightSliders) != 0) {
+            return true;
+        }
+        long diagonalSliders = pieces(attacker, PieceType.BISHOP) | queens;
+        return diagonalSliders != 0 && (MagicBitboards.bishopAttacks(square, occupied) & diagonalSliders) != 0;
+    }
+
+    /**
+     * Finds every piece of the attacking team that could capture on a square
+     *
+     * @param occupied the occupied squares to use for blocking sliders
+     * @return squares of the attacking pieces
+     */
+    long attackersTo(int square, TeamColor attacker, long occupied) {
+        long queens = pieces(attacker, PieceType.QUEEN);
+        return (Bitboards.PAWN_ATTACKS[Bitboards.opponent(attacker).ordinal()][square]
+                & pieces(attacker, PieceType.PAWN))
+                | (Bitboards.KNIGHT_ATTACKS[square] & pieces(attacker, PieceType.KNIGHT))
+                | (Bitboards.KING_ATTACKS[square] & pieces(attacker, PieceType.KING))
+                | (MagicBitboards.rookAttacks(square, occupied) & (pieces(attacker, PieceType.ROOK) | queens))
+                | (MagicBitboards.bishopAttacks(square, occupied) & (pieces(attacker, PieceType.BISHOP) | queens));
+    }
+
+    /**
+     * Finds a team's king from its bitboard rather than searching the board
+     *
+     * @return the square of the team's king, or -1 if it has none
+     */
+    int kingSquare(TeamColor color) {
+        long kings = pieces(color, PieceType.KING);
+        return kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    /**
+     * @return squares holding the given kind of piece
+     */
+    long pieces(TeamColor color, PieceType type) {
+        return pieceBitboards[Bitboards.pieceIndex(color, type)];
+    }
+
+    /**
+     * @return squares holding any piece of the given team
+     */
+    long occupancy(TeamColor color) {
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * @return squares holding any piece
+     */
+    long occupancy() {
+        return occupied;
+    }
+
+    /**
+     * @return the piece index at the square, or -1 if it is empty
+     */
+    int pieceAt(int square) {
+        return squares[square] - 1;
+    }
+
+    /**
+     * @return material on the board in centipawns, positive when white is ahead
+     */
+    int materialScore() {
+        return materialScore;
+    }
+
+    /**
+     * @return sum of the square bonuses of every piece, positive when white is
+     *         ahead
+     */
+    int pieceSquareScore() {
+        return pieceSquareScore;
+    }
+
+    private void placePiece(int square, int pieceIndex) {
+        long bit = Bitboards.bit(square);
+        pieceBitboards[pieceIndex] |= bit;
+        colorBitboards[pieceIndex / Bitboards.PIECE_TYPES] |= bit;
+        occupied |= bit;
+        squares[square] = (byte) (pieceIndex + 1);
+        zobristKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+        materialScore += Evaluation.MATERIAL[pieceIndex];
+        pieceSquareScore += Evaluation.PIECE_SQUARE[pieceIndex][square];
+    }
+
+    /**
+     * Empties a square
+     *
+     * @return the index of the piece that was removed, or -1 if it was empty
+     */
+    private int clearSquare(int square) {
+        int pieceIndex = pieceAt(square);
+        if (pieceIndex >= 0) {
+            long bit = Bitboards.bit(square);
+            pieceBitboards[pieceIndex] &= ~bit;
+            colorBitboards[pieceIndex / Bitboards.PIECE_TYPES] &= ~bit;
+            occupied &= ~bit;
+            squares[square] = 0;
+            zobristKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+            materialScore -= Evaluation.MATERIAL[pieceIndex];
+            pieceSquareScore -= Evaluation.PIECE_SQUARE[pieceIndex][square];
+        }
+        return pieceIndex;
+    }
+
+    /**
+     * Works out the derived state again from the piece bitboards of a board that
+     * was read back, dropping castling rights and an en passant square the pieces
+     * don't back up
+     *
+     * @throws IllegalArgumentException if the bitboards aren't a valid board
+     */
+    private void rebuildDerivedState() {
+        long[] pieces = pieceBitboards;
+        if (pieces == null || pieces.length != Bitboards.PIECE_KINDS) {
+            throw new IllegalArgumentException("Board needs a bitboard for each of the "
+                    + Bitboards.PIECE_KINDS + " piece kinds");
+        }
+        pieceBitboards = new long[Bitboards.PIECE_KINDS];
+        colorBitboards = new long[TeamColor.values().length];
+        occupied = 0L;
+        squares = new byte[Bitboards.SQUARES];
+        zobristKey = 0L;
+        materialScore = 0;
+        pieceSquareScore = 0;
+        undoStack = new long[INITIAL_UNDO_CAPACITY];
+        undoCount = 0;
+        for (int pieceIndex = 0; pieceIndex < Bitboards.PIECE_KINDS; pieceIndex++) {
+            for (long remaining = pieces[pieceIndex]; remaining != 0; remaining &= remaining - 1) {
+                int square = Long.numberOfTrailingZeros(remaining);
+                if (squares[square] != 0) {
+                    throw new IllegalArgumentException("Two pieces on square " + square);
+                }
+                placePiece(square, pieceIndex);
+            }
+        }
+        dropUnbackedRights();
+    }
+
+    /**
+     * Drops castling rights whose king or rook has left its starting square and
+     * an en passant square no pawn could have skipped or no enemy pawn can take
+     * on, for boards read from outside
+     */
+    void dropUnbackedRights() {
+        int claimedRights = castlingRights;
+        inferCastlingRights();
+        setCastlingRights(castlingRights & claimedRights);
+        int skipped = enPassantSquare;
+        enPassantSquare = NO_SQUARE;
+        if (skipped >= 0 && skipped < Bitboards.SQUARES) {
+            int row = Bitboards.row(skipped);
+            TeamColor mover = row == 3 ? TeamColor.WHITE : row == BOARD_ROWS - 2 ? TeamColor.BLACK : null;
+            if (mover != null && isEnPassantCapturable(skipped, mover)) {
+                enPassantSquare = skipped;
+            }
+        }
+    }
+
+    /**
+     * Serializes only the pieces, castling rights and en passant square, and
+     * rebuilds the rest when a board is read back
+     */
+    static final class RebuildingAdapterFactory implements TypeAdapterFactory {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!ChessBoard.class.isAssignableFrom(type.getRawType())) {
+                return null;
+            }
+            TypeAdapter<T> fields = gson.getDelegateAdapter(this, type);
+            return new TypeAdapter<T>() {
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    fields.write(out, value);
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    T value = fields.read(in);
+                    if (value != null) {
+                        try {
+                            ((ChessBoard) value).rebuildDerivedState();
+                        } catch (IllegalArgumentException ex) {
+                            throw new JsonParseException("Invalid board: " + ex.getMessage(), ex);
+                        }
+                    }
+                    return value;
+                }
+            };
+        }
+    }
+
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + Arrays.deepHashCode(board);
-        return result;
+        return Long.hashCode(zobristKey);
     }
 
     @Override
@@ -141,7 +661,7 @@ public class ChessBoard {
             return false;
         }
         ChessBoard other = (ChessBoard) obj;
-        if (!Arrays.deepEquals(board, other.board)) {
+        if (!Arrays.equals(pieceBitboards, other.pieceBitboards)) {
             return false;
         }
         return true;
@@ -149,18 +669,30 @@ public class ChessBoard {
 
     @Override
     public String toString() {
-        return "ChessBoard [board=" + Arrays.toString(board) + "]";
+        StringBuilder builder = new StringBuilder("ChessBoard [board=\n");
+        for (int row = ChessBoard.BOARD_ROWS; row >= 1; row--) {
+            builder.append('|');
+            for (int col = 1; col <= ChessBoard.BOARD_COLS; col++) {
+                int pieceIndex = pieceAt(Bitboards.square(row, col));
+                builder.append(pieceIndex < 0 ? ' ' : PIECE_SYMBOLS.charAt(pieceIndex)).append('|');
+            }
+            builder.append('\n');
+        }
+        return builder.append(']').toString();
     }
 
     @Override
     public ChessBoard clone() {
         ChessBoard copy = new ChessBoard();
-        for (int row = 1; row <= BOARD_ROWS; row++) {
-            for (int col = 1; col <= BOARD_COLS; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                copy.addPiece(position, this.getPiece(position));
-            }
-        }
+        copy.pieceBitboards = this.pieceBitboards.clone();
+        copy.colorBitboards = this.colorBitboards.clone();
+        copy.occupied = this.occupied;
+        copy.squares = this.squares.clone();
+        copy.zobristKey = this.zobristKey;
+        copy.castlingRights = this.castlingRights;
+        copy.enPassantSquare = this.enPassantSquare;
+        copy.materialScore = this.materialScore;
+        copy.pieceSquareScore = this.pieceSquareScore;
         return copy;
     }
 }
@@ -1,9 +1,20 @@
 package chess;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Objects;
 
-import chess.ChessPiece.PieceType;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -11,10 +22,27 @@ import chess.ChessPiece.PieceType;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGame.HistoryAdapterFactory.class)
 public class ChessGame {
 
     private TeamColor currentTeamTurn;
     private ChessBoard board;
+    // moves since the last capture or pawn move
+    private int halfmoveClock;
+    // starts at 1 and goes up after each of black's moves
+    private int fullmoveNumber;
+    // Zobrist keys of every position since the last capture or pawn move, the
+    // current position last. Earlier positions can never come up again so they
+    // aren't kept. Only the first historyCount keys are serialized.
+    private long[] positionHistory;
+    private transient int historyCount;
+    // scratch space reused by every move generation on this game
+    private transient MoveList moveBuffer;
+
+    // a draw can be claimed after this many moves without a capture or pawn move
+    private static final int FIFTY_MOVE_HALFMOVES = 100;
+    private static final int REPETITIONS_FOR_DRAW = 3;
+    private static final int INITIAL_HISTORY_CAPACITY = 16;
 
     public ChessGame() {
         // white goes first
@@ -22,6 +50,30 @@ public class ChessGame {
         board = new ChessBoard();
         // setup board for initial game
         board.resetBoard();
+        moveBuffer = new MoveList();
+        positionHistory = new long[INITIAL_HISTORY_CAPACITY];
+        fullmoveNumber = 1;
+        resetHistory();
+    }
+
+    /**
+     * Builds a game from a position in Forsyth-Edwards Notation, including the
+     * team to move, castling rights, en passant square and move counters when
+     * given
+     *
+     * @param fen the FEN record to read
+     * @return a game in that position with no earlier history
+     * @throws IllegalArgumentException if the text isn't a valid FEN record
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.format(this);
     }
 
     /**
@@ -38,6 +90,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.currentTeamTurn = team;
+        resetHistory();
     }
 
     /**
@@ -60,15 +113,14 @@ public class ChessGame {
         if (piece == null) {
             return null;
         }
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(board, startPosition);
-        // remove any moves that put the king in danger
-        possibleMoves.removeIf(move -> {
-            ChessBoard resultingBoard = this.board.clone();
-            resultingBoard.movePiece(move);
-            return isInCheck(piece.getTeamColor(), resultingBoard);
-        });
-
-        return possibleMoves;
+        int square = Bitboards.square(startPosition);
+        Collection<ChessMove> moves = new ArrayList<>();
+        for (int move : cachedMoves(piece.getTeamColor()).moves) {
+            if (Move.from(move) == square) {
+                moves.add(Move.toChessMove(move));
+            }
+        }
+        return moves;
     }
 
     /**
@@ -85,13 +137,32 @@ public class ChessGame {
             throw new InvalidMoveException("Not your turn");
         }
 
-        Collection<ChessMove> validMoves = this.validMoves(move.getStartPosition());
-        if (!validMoves.contains(move)) {
+        int legalMove = cachedMoves(piece.getTeamColor()).find(Move.fromChessMove(move));
+        if (legalMove == Move.NONE) {
             throw new InvalidMoveException("Move is invalid");
         }
 
         board.movePiece(move);
+        if (currentTeamTurn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
         this.currentTeamTurn = currentTeamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        // captures and pawn moves can't be undone, so no earlier position can repeat
+        if (Move.isCapture(legalMove) || piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            halfmoveClock = 0;
+            historyCount = 0;
+        } else {
+            halfmoveClock++;
+        }
+        recordPosition();
+    }
+
+    /**
+     * Gets the team's legal moves and check status in the current position from
+     * the shared cache, generating them on a miss
+     */
+    private LegalMoveCache.Entry cachedMoves(TeamColor teamColor) {
+        return LegalMoveCache.shared().lookup(board, teamColor, moveBuffer);
     }
 
     /**
@@ -101,19 +172,7 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        return isInCheck(teamColor, this.board);
-    }
-
-    private boolean isInCheck(TeamColor teamColor, ChessBoard board) {
-        ChessPosition kingPosition = getKingPosition(teamColor, board);
-        Collection<ChessMove> allOpponentMoves = getAllTeamMoves(
-                teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE, board);
-        for (ChessMove move : allOpponentMoves) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
-        }
-        return false;
+        return cachedMoves(teamColor).inCheck;
     }
 
     /**
@@ -123,7 +182,8 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        return isInCheck(teamColor) && !teamHasValidMoves(teamColor, this.board);
+        LegalMoveCache.Entry entry = cachedMoves(teamColor);
+        return entry.inCheck && !entry.hasMoves();
     }
 
     /**
@@ -134,26 +194,40 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        return !isInCheck(teamColor) && !teamHasValidMoves(teamColor, this.board);
+        LegalMoveCache.Entry entry = cachedMoves(teamColor);
+        return !entry.inCheck && !entry.hasMoves();
     }
 
-    private boolean teamHasValidMoves(TeamColor teamColor, ChessBoard board) {
-        Collection<ChessPosition> teamPiecePositions = getAllTeamPiecePositions(teamColor, board);
-        for (ChessPosition position : teamPiecePositions) {
-            if (!validMoves(position).isEmpty()) {
-                return true;
-            }
+    /**
+     * Gets every legal move for a team, working out check and pins once for the
+     * whole team instead of once per piece
+     *
+     * @param teamColor the team to get moves for
+     * @return all moves the team could legally make on the current board
+     */
+    public Collection<ChessMove> legalMoves(TeamColor teamColor) {
+        int[] moves = cachedMoves(teamColor).moves;
+        Collection<ChessMove> chessMoves = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            chessMoves.add(Move.toChessMove(move));
         }
-        return false;
+        return chessMoves;
     }
 
     /**
      * Sets this game's chessboard with a given board
+     * <p>
+     * The board is treated as freshly set up, so each side may castle with any
+     * king and rook still on their starting squares.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        if (board != null) {
+            board.inferCastlingRights();
+        }
+        resetHistory();
     }
 
     /**
@@ -166,53 +240,205 @@ public class ChessGame {
     }
 
     /**
-     * Gets the position of the specified team's king
-     * 
-     * @param teamColor which team's king to search for
-     * @return location of the team's king
+     * Gets a 64-bit Zobrist hash of the position, covering the pieces on the board,
+     * castling rights, en passant square and whose turn it is. Equal positions always have equal keys, and the key is
+     * maintained incrementally so reading it is constant time.
+     *
+     * @return the Zobrist key of the current position
      */
-    private ChessPosition getKingPosition(TeamColor teamColor, ChessBoard board) {
-        ChessPosition position;
-        ChessPiece piece;
-        for (int row = 1; row <= ChessBoard.BOARD_ROWS; row++) {
-            for (int col = 1; col <= ChessBoard.BOARD_COLS; col++) {
-                position = new ChessPosition(row, col);
-                piece = board.getPiece(position);
-                if (piece != null && piece.getPieceType() == PieceType.KING && piece.getTeamColor() == teamColor) {
-                    return position;
-                }
+    public long getZobristKey() {
+        long key = board == null ? 0L : board.getZobristKey();
+        if (currentTeamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        return key;
+    }
+
+    /**
+     * @return number of moves made since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current full move, starting at 1 and going up
+     *         after each of black's moves
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Counts how many times the current position has come up, including now.
+     * Only positions since the last capture or pawn move are looked at since no
+     * earlier position can be repeated.
+     *
+     * @return times the current position, with the same team to move, has
+     *         occurred
+     */
+    public int getRepetitionCount() {
+        long key = positionHistory[historyCount - 1];
+        int count = 1;
+        // the same team is only to move every other position
+        for (int i = historyCount - 3; i >= 0; i -= 2) {
+            if (positionHistory[i] == key) {
+                count++;
             }
         }
-        return null;
+        return count;
+    }
+
+    /**
+     * @return True if the current position has occurred three times
+     */
+    public boolean isDrawByRepetition() {
+        return getRepetitionCount() >= REPETITIONS_FOR_DRAW;
+    }
+
+    /**
+     * @return True if fifty moves by each team have gone by without a capture or
+     *         pawn move
+     */
+    public boolean isDrawByFiftyMoveRule() {
+        return halfmoveClock >= FIFTY_MOVE_HALFMOVES;
+    }
+
+    /**
+     * Determines if the game is drawn by repetition, the fifty move rule or the
+     * team to move being in stalemate
+     *
+     * @return True if the game is a draw
+     */
+    public boolean isDraw() {
+        return isDrawByRepetition() || isDrawByFiftyMoveRule() || isInStalemate(currentTeamTurn);
+    }
+
+    /**
+     * Determines if the game has ended, either with the team to move checkmated
+     * or in a draw
+     *
+     * @return True if no more moves should be played
+     */
+    public boolean isOver() {
+        return isDraw() || isInCheckmate(currentTeamTurn);
+    }
+
+    /**
+     * Starts the history over from the current position, used when the position
+     * is set rather than reached by moves
+     */
+    private void resetHistory() {
+        halfmoveClock = 0;
+        historyCount = 0;
+        recordPosition();
+    }
+
+    /**
+     * Sets the whole position at once, as read from a FEN record. The board's
+     * castling rights and en passant square are kept as they are.
+     */
+    void setPosition(ChessBoard board, TeamColor turn, int halfmoveClock, int fullmoveNumber) {
+        this.board = board;
+        this.currentTeamTurn = turn;
+        this.fullmoveNumber = fullmoveNumber;
+        resetHistory();
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * @return number of positions in the repetition history, the current one
+     *         last
+     */
+    int historyCount() {
+        return historyCount;
+    }
+
+    long historyKey(int index) {
+        return positionHistory[index];
+    }
+
+    /**
+     * Replaces the repetition history, which must end with the current position
+     *
+     * @param keys  Zobrist keys of the positions, oldest first
+     * @param count how many of the keys to use
+     */
+    void setHistory(long[] keys, int count) {
+        if (count < 1 || keys[count - 1] != getZobristKey()) {
+            throw new IllegalArgumentException("History must end with the current position");
+        }
+        positionHistory = Arrays.copyOf(keys, Math.max(count, INITIAL_HISTORY_CAPACITY));
+        historyCount = count;
     }
 
-    private Collection<ChessMove> getAllTeamMoves(TeamColor teamColor, ChessBoard board) {
-        Collection<ChessMove> allTeamMoves = new ArrayList<>();
-        Collection<ChessPosition> teamPiecePositions = getAllTeamPiecePositions(teamColor, board);
-        for (ChessPosition position : teamPiecePositions) {
-            ChessPiece piece = board.getPiece(position);
-            for (ChessMove move : piece.pieceMoves(board, position)) {
-                allTeamMoves.add(move);
+    /**
+     * Serializes only the used part of the position history and checks it
+     * against the position when a game is read back
+     */
+    static final class HistoryAdapterFactory implements TypeAdapterFactory {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!ChessGame.class.isAssignableFrom(type.getRawType())) {
+                return null;
             }
+            TypeAdapter<T> fields = gson.getDelegateAdapter(this, type);
+            TypeAdapter<JsonElement> trees = gson.getAdapter(JsonElement.class);
+            return new TypeAdapter<T>() {
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    JsonElement tree = fields.toJsonTree(value);
+                    if (value != null) {
+                        ChessGame game = (ChessGame) value;
+                        JsonArray history = new JsonArray(game.historyCount);
+                        for (int i = 0; i < game.historyCount; i++) {
+                            history.add(game.positionHistory[i]);
+                        }
+                        tree.getAsJsonObject().add("positionHistory", history);
+                    }
+                    trees.write(out, tree);
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    T value = fields.read(in);
+                    if (value != null) {
+                        ((ChessGame) value).restoreHistory();
+                    }
+                    return value;
+                }
+            };
         }
-        return allTeamMoves;
     }
 
-    private Collection<ChessPosition> getAllTeamPiecePositions(TeamColor teamColor, ChessBoard board) {
-        Collection<ChessPosition> piecePositions = board.getAllPiecePositions();
-        piecePositions.removeIf(position -> {
-            return board.getPiece(position).getTeamColor() != teamColor;
-        });
-        return piecePositions;
+    /**
+     * Picks the history back up from the keys that were read, starting it over
+     * from the current position if they don't end with it
+     */
+    private void restoreHistory() {
+        long[] keys = positionHistory == null ? new long[0] : positionHistory;
+        int count = keys.length;
+        positionHistory = new long[INITIAL_HISTORY_CAPACITY];
+        historyCount = 0;
+        if (count > 0 && keys[count - 1] == getZobristKey()) {
+            setHistory(keys, count);
+        } else {
+            recordPosition();
+        }
+    }
+
+    private void recordPosition() {
+        if (historyCount == positionHistory.length) {
+            positionHistory = Arrays.copyOf(positionHistory, positionHistory.length * 2);
+        }
+        positionHistory[historyCount++] = getZobristKey();
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((currentTeamTurn == null) ? 0 : currentTeamTurn.hashCode());
-        result = prime * result + ((board == null) ? 0 : board.hashCode());
-        return result;
+        // only the pieces and turn, like equals, so games that differ just in
+        // castling rights or en passant still hash alike
+        return Objects.hash(currentTeamTurn, board);
     }
 
     @Override
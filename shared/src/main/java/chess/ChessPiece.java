@@ -2,8 +2,6 @@ package chess;
 
 import java.util.Collection;
 
-import java.util.ArrayList;
-
 /**
  * Represents a single chess piece
  * <p>
@@ -11,8 +9,8 @@ import java.util.ArrayList;
  * signature of the existing methods.
  */
 public class ChessPiece {
-    private ChessGame.TeamColor teamColor;
-    private ChessPiece.PieceType type;
+    private final ChessGame.TeamColor teamColor;
+    private final ChessPiece.PieceType type;
 
     /**
      * Creates a chess piece with the given team and type
@@ -37,8 +35,37 @@ public class ChessPiece {
         PAWN
     }
 
-    private static final PieceType[] PAWN_PROMOTABLE_PIECE_TYPES = new PieceType[] { PieceType.QUEEN, PieceType.ROOK,
-            PieceType.BISHOP, PieceType.KNIGHT };
+    // a queen in the middle of an empty board has the most moves of any piece
+    private static final int MAX_PIECE_MOVES = 27;
+
+    // canonical instance for every colored piece kind, indexed by
+    // Bitboards.pieceIndex
+    private static final ChessPiece[] PIECES = new ChessPiece[Bitboards.PIECE_KINDS];
+
+    static {
+        for (int pieceIndex = 0; pieceIndex < Bitboards.PIECE_KINDS; pieceIndex++) {
+            PIECES[pieceIndex] = new ChessPiece(Bitboards.colorOf(pieceIndex), Bitboards.typeOf(pieceIndex));
+        }
+    }
+
+    /**
+     * Gets the shared instance of a piece rather than allocating a new one. Pieces
+     * are immutable so the same instance can be placed on any number of boards.
+     *
+     * @param pieceColor color of the team that the piece is assigned to
+     * @param type       type of chess piece
+     * @return a piece equal to {@code new ChessPiece(pieceColor, type)}
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[Bitboards.pieceIndex(pieceColor, type)];
+    }
+
+    /**
+     * @return the shared piece instance for a piece index
+     */
+    static ChessPiece of(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
 
     /**
      * @return Which team this chess piece belongs to
@@ -62,331 +89,10 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        switch (type) {
-            case PieceType.KING:
-                return kingMoves(board, myPosition);
-
-            case PieceType.QUEEN:
-                return queenMoves(board, myPosition);
-
-            case PieceType.BISHOP:
-                return bishopMoves(board, myPosition);
-
-            case PieceType.KNIGHT:
-                return knightMoves(board, myPosition);
-
-            case PieceType.ROOK:
-                return rookMoves(board, myPosition);
-
-            case PieceType.PAWN:
-                return pawnMoves(board, myPosition);
-        }
-
-        return new ArrayList<ChessMove>();
-    }
-
-    private Collection<ChessMove> kingMoves(ChessBoard board, ChessPosition myPosition) {
-        ChessPosition possiblePosition;
-        Collection<ChessMove> possibleMoves = new ArrayList<>();
-        // can move in any direction one square
-        // up
-        possiblePosition = new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn());
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // up right
-        possiblePosition = new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn() + 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // right
-        possiblePosition = new ChessPosition(myPosition.getRow(), myPosition.getColumn() + 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // down right
-        possiblePosition = new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn() + 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // down
-        possiblePosition = new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn());
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // down left
-        possiblePosition = new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn() - 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // left
-        possiblePosition = new ChessPosition(myPosition.getRow(), myPosition.getColumn() - 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // up left
-        possiblePosition = new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn() - 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-        return possibleMoves;
-    }
-
-    private Collection<ChessMove> queenMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> possibleMoves = new ArrayList<>();
-
-        // can move in any direction any amount
-        // straight moves
-        // up
-        possibleMoves.addAll(movesInDirection(board, myPosition, 1, 0));
-
-        // down
-        possibleMoves.addAll(movesInDirection(board, myPosition, -1, 0));
-
-        // left
-        possibleMoves.addAll(movesInDirection(board, myPosition, 0, -1));
-
-        // right
-        possibleMoves.addAll(movesInDirection(board, myPosition, 0, 1));
-
-        // diagonal moves
-        // up to the right
-        possibleMoves.addAll(movesInDirection(board, myPosition, 1, 1));
-
-        // up to the left
-        possibleMoves.addAll(movesInDirection(board, myPosition, 1, -1));
-
-        // down to the right
-        possibleMoves.addAll(movesInDirection(board, myPosition, -1, 1));
-
-        // down to the left
-        possibleMoves.addAll(movesInDirection(board, myPosition, -1, -1));
-
-        return possibleMoves;
-    }
-
-    private Collection<ChessMove> bishopMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> possibleMoves = new ArrayList<>();
-
-        // can move diagonally any amount
-        // up to the right
-        possibleMoves.addAll(movesInDirection(board, myPosition, 1, 1));
-
-        // up to the left
-        possibleMoves.addAll(movesInDirection(board, myPosition, 1, -1));
-
-        // down to the right
-        possibleMoves.addAll(movesInDirection(board, myPosition, -1, 1));
-
-        // down to the left
-        possibleMoves.addAll(movesInDirection(board, myPosition, -1, -1));
-
-        return possibleMoves;
-    }
-
-    private Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition myPosition) {
-        ChessPosition possiblePosition;
-        Collection<ChessMove> possibleMoves = new ArrayList<>();
-
-        // can jump forward 2, to the side 1
-        // up right
-        possiblePosition = new ChessPosition(myPosition.getRow() + 2, myPosition.getColumn() + 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // right up
-        possiblePosition = new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn() + 2);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // right down
-        possiblePosition = new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn() + 2);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // down right
-        possiblePosition = new ChessPosition(myPosition.getRow() - 2, myPosition.getColumn() + 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // down left
-        possiblePosition = new ChessPosition(myPosition.getRow() - 2, myPosition.getColumn() - 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // left down
-        possiblePosition = new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn() - 2);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // left up
-        possiblePosition = new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn() - 2);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        // up left
-        possiblePosition = new ChessPosition(myPosition.getRow() + 2, myPosition.getColumn() - 1);
-        if (canMoveToPosition(board, possiblePosition)) {
-            possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-        }
-
-        return possibleMoves;
-    }
-
-    private Collection<ChessMove> rookMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> possibleMoves = new ArrayList<>();
-
-        // can move in a straight line any amount
-        // up
-        possibleMoves.addAll(movesInDirection(board, myPosition, 1, 0));
-
-        // down
-        possibleMoves.addAll(movesInDirection(board, myPosition, -1, 0));
-
-        // left
-        possibleMoves.addAll(movesInDirection(board, myPosition, 0, -1));
-
-        // right
-        possibleMoves.addAll(movesInDirection(board, myPosition, 0, 1));
-
-        return possibleMoves;
-    }
-
-    private Collection<ChessMove> pawnMoves(ChessBoard board, ChessPosition myPosition) {
-        ChessPosition possiblePosition;
-        ChessPiece pieceAtLocation;
-        Collection<ChessMove> possibleMoves = new ArrayList<>();
-
-        // can move forward 1, or if it has not moved then it can move 2 squares,
-        // attacks on the diagonals, can be promoted as well if it reached the end of
-        // the board
-        boolean canPromote = false;
-        final boolean isWhite = this.teamColor == ChessGame.TeamColor.WHITE;
-        final boolean hasMoved = (isWhite && myPosition.getRow() != 2)
-                || (!isWhite && myPosition.getRow() != ChessBoard.BOARD_ROWS - 1);
-        final int direction = isWhite ? 1 : -1;
-
-        possiblePosition = new ChessPosition(myPosition.getRow() + 1 * direction, myPosition.getColumn());
-        if ((this.teamColor == ChessGame.TeamColor.WHITE && possiblePosition.getRow() == ChessBoard.BOARD_ROWS)
-                || (this.teamColor == ChessGame.TeamColor.BLACK && possiblePosition.getRow() == 1)) {
-            // Pawn can be promoted
-            canPromote = true;
-        }
-        pieceAtLocation = board.getPiece(possiblePosition);
-        // if the space in front is empty, it can move there
-        if (pieceAtLocation == null) {
-            if (canPromote) {
-                // add promotion types
-                for (PieceType promotionType : PAWN_PROMOTABLE_PIECE_TYPES) {
-                    possibleMoves.add(new ChessMove(myPosition, possiblePosition, promotionType));
-                }
-            } else {
-                possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-            }
-
-            if (!hasMoved) {
-                // pawn can move double since it hasn't moved yet
-                possiblePosition = new ChessPosition(myPosition.getRow() + 2 * direction,
-                        myPosition.getColumn());
-                pieceAtLocation = board.getPiece(possiblePosition);
-                if (pieceAtLocation == null) {
-                    possibleMoves.add(new ChessMove(myPosition, possiblePosition));
-                }
-            }
-        }
-
-        // attacking
-        // right diagonal
-        possibleMoves.addAll(pawnAttack(board, myPosition, direction, 1, canPromote));
-
-        // left diagonal
-        possibleMoves.addAll(pawnAttack(board, myPosition, direction, -1, canPromote));
-
-        return possibleMoves;
-    }
-
-    private Collection<ChessMove> pawnAttack(ChessBoard board,
-            ChessPosition myPosition, int direction, int columnOffset, boolean canPromote) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        if (myPosition.getColumn() + columnOffset > 0
-                && myPosition.getColumn() + columnOffset < ChessBoard.BOARD_COLS) {
-            ChessPosition possiblePosition = new ChessPosition(myPosition.getRow() + direction,
-                    myPosition.getColumn() + columnOffset);
-            ChessPiece pieceAtLocation = board.getPiece(possiblePosition);
-            if (pieceAtLocation != null && pieceAtLocation.teamColor != this.teamColor) {
-                if (canPromote) {
-                    for (PieceType promotionType : PAWN_PROMOTABLE_PIECE_TYPES) {
-                        moves.add(new ChessMove(myPosition, possiblePosition, promotionType));
-                    }
-                } else {
-                    moves.add(new ChessMove(myPosition, possiblePosition));
-                }
-            }
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> movesInDirection(ChessBoard board, ChessPosition myPosition, int rowChange,
-            int colChange) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        ChessPiece pieceAtLocation;
-
-        ChessPosition possiblePosition = new ChessPosition(myPosition.getRow() + rowChange,
-                myPosition.getColumn() + colChange);
-
-        while (isInBounds(possiblePosition)) {
-            pieceAtLocation = board.getPiece(possiblePosition);
-            // if there is already a piece there
-            if (pieceAtLocation != null) {
-                if (pieceAtLocation.teamColor == this.teamColor) {
-                    break;
-                } else {
-                    moves.add(new ChessMove(myPosition, possiblePosition));
-                    break;
-                }
-            }
-            // the space is empty so the piece can move there
-            moves.add(new ChessMove(myPosition, possiblePosition));
-            possiblePosition = new ChessPosition(possiblePosition.getRow() + rowChange,
-                    possiblePosition.getColumn() + colChange);
-        }
-        return moves;
-    }
-
-    private boolean canMoveToPosition(ChessBoard board, ChessPosition position) {
-        if (isInBounds(position)) {
-            ChessPiece pieceAtLocation = board.getPiece(position);
-            if (pieceAtLocation == null || pieceAtLocation.teamColor != this.teamColor) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Verifies whether a given position is on the chess board
-     * 
-     * @param position position to check
-     * @return true if the position is on the board
-     */
-    private boolean isInBounds(ChessPosition position) {
-        int col = position.getColumn();
-        int row = position.getRow();
-        return col > 0 && col <= ChessBoard.BOARD_COLS && row > 0 && row <= ChessBoard.BOARD_ROWS;
+        MoveList moves = new MoveList(MAX_PIECE_MOVES);
+        MoveGenerator.generatePieceMoves(board, Bitboards.pieceIndex(this.teamColor, this.type),
+                Bitboards.square(myPosition), moves);
+        return moves.toChessMoves();
     }
 
     @Override
@@ -8,14 +8,45 @@ package chess;
  */
 public class ChessPosition {
 
-    private int row;
-    private int col;
+    private final int row;
+    private final int col;
+
+    // canonical instance for every square on the board, indexed by square
+    private static final ChessPosition[] POSITIONS = new ChessPosition[Bitboards.SQUARES];
+
+    static {
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            POSITIONS[square] = new ChessPosition(Bitboards.row(square), Bitboards.column(square));
+        }
+    }
 
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Gets a shared position instance rather than allocating a new one. Positions
+     * on the board are cached, positions off the board are created on demand.
+     *
+     * @param row 1-based row
+     * @param col 1-based column
+     * @return a position equal to {@code new ChessPosition(row, col)}
+     */
+    public static ChessPosition of(int row, int col) {
+        if (Bitboards.isOnBoard(row, col)) {
+            return POSITIONS[Bitboards.square(row, col)];
+        }
+        return new ChessPosition(row, col);
+    }
+
+    /**
+     * @return the shared position instance for a square index
+     */
+    static ChessPosition of(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * @return which row this position is in
      *         1 codes for the bottom row
@@ -0,0 +1,140 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Scores a position in centipawns for the search
+ * <p>
+ * The score is the material on the board plus a bonus or penalty for the square
+ * each piece stands on. Both terms are kept up to date by {@link ChessBoard} as
+ * pieces are placed and removed, so scoring a position is constant time.
+ */
+final class Evaluation {
+
+    /**
+     * Value of each piece type by ordinal, the king is never traded so it is
+     * worth nothing here
+     */
+    static final int[] PIECE_VALUES = { 0, 900, 330, 320, 500, 100 };
+
+    /**
+     * Material worth of each piece index, positive for white and negative for
+     * black
+     */
+    static final int[] MATERIAL = new int[Bitboards.PIECE_KINDS];
+
+    /**
+     * Square bonus of each piece index on each square, positive for white and
+     * negative for black
+     */
+    static final int[][] PIECE_SQUARE = new int[Bitboards.PIECE_KINDS][Bitboards.SQUARES];
+
+    // square bonuses for white by piece type ordinal, laid out as the board is
+    // seen from white's side with row 8 on top, black uses the mirror image
+    private static final int[][] WHITE_TABLES = {
+            // king, stay behind the pawns
+            { -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20 },
+            // queen
+            { -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20 },
+            // bishop
+            { -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20 },
+            // knight
+            { -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50 },
+            // rook
+            { 0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0 },
+            // pawn, push forward and keep the center pawns off their start
+            { 0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0 } };
+
+    static {
+        for (int pieceIndex = 0; pieceIndex < Bitboards.PIECE_KINDS; pieceIndex++) {
+            boolean isWhite = Bitboards.colorOf(pieceIndex) == TeamColor.WHITE;
+            int sign = isWhite ? 1 : -1;
+            int[] table = WHITE_TABLES[Bitboards.typeOf(pieceIndex).ordinal()];
+            MATERIAL[pieceIndex] = sign * pieceValue(pieceIndex);
+            for (int square = 0; square < Bitboards.SQUARES; square++) {
+                // the tables list row 8 first, which is where black starts
+                int row = Bitboards.row(square);
+                int tableRow = isWhite ? ChessBoard.BOARD_ROWS - row : row - 1;
+                PIECE_SQUARE[pieceIndex][square] = sign
+                        * table[tableRow * ChessBoard.BOARD_COLS + Bitboards.column(square) - 1];
+            }
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return how much better the position is for the given team, in centipawns
+     */
+    static int evaluate(ChessBoard board, TeamColor color) {
+        int score = board.materialScore() + board.pieceSquareScore();
+        return color == TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Scores a board from scratch, used to check the incremental scores
+     *
+     * @return material plus square bonuses, positive when white is ahead
+     */
+    static int evaluateFromScratch(ChessBoard board) {
+        int score = 0;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            int pieceIndex = board.pieceAt(square);
+            if (pieceIndex >= 0) {
+                score += MATERIAL[pieceIndex] + PIECE_SQUARE[pieceIndex][square];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @return value of the piece with the given index
+     */
+    static int pieceValue(int pieceIndex) {
+        return PIECE_VALUES[pieceIndex % Bitboards.PIECE_TYPES];
+    }
+}
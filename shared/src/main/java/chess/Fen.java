@@ -0,0 +1,252 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation
+ * <p>
+ * A FEN record is six fields separated by spaces: the pieces row by row from
+ * row 8 down, the team to move, castling rights, the en passant square, the
+ * halfmove clock and the fullmove number, for example
+ * {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1}. The two
+ * clocks are often left off, so they are optional when reading. Parsing walks
+ * the text once by index and writes straight into a new board.
+ */
+final class Fen {
+
+    /**
+     * FEN of the standard starting position
+     */
+    static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // castling letters in the order of the ChessBoard castle bits
+    private static final String CASTLING_SYMBOLS = "KQkq";
+    private static final char NONE = '-';
+    private static final char FIELD_SEPARATOR = ' ';
+    private static final char ROW_SEPARATOR = '/';
+
+    // long enough for any legal position without growing
+    private static final int TYPICAL_LENGTH = 90;
+
+    private Fen() {
+    }
+
+    /**
+     * Builds a game in the position the FEN describes
+     *
+     * @throws IllegalArgumentException if the text isn't a valid FEN record
+     */
+    static ChessGame parse(String fen) {
+        if (fen == null) {
+            throw new IllegalArgumentException("FEN must not be null");
+        }
+        Reader reader = new Reader(fen.strip());
+        ChessBoard board = new ChessBoard();
+        reader.readPieces(board);
+        reader.expectSeparator();
+        TeamColor turn = reader.readTurn();
+        reader.expectSeparator();
+        int castlingRights = reader.readCastlingRights();
+        reader.expectSeparator();
+        int enPassantSquare = reader.readEnPassantSquare(turn);
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (!reader.atEnd()) {
+            reader.expectSeparator();
+            halfmoveClock = reader.readNumber(0);
+            reader.expectSeparator();
+            fullmoveNumber = reader.readNumber(1);
+        }
+        if (!reader.atEnd()) {
+            throw reader.error("unexpected text after the fullmove number");
+        }
+
+        // rights without a king and rook to back them are meaningless, and keeping
+        // them would give the same position two different keys
+        board.inferCastlingRights();
+        board.setCastlingRights(board.castlingRights() & castlingRights);
+        if (enPassantSquare != ChessBoard.NO_SQUARE
+                && board.isEnPassantCapturable(enPassantSquare, Bitboards.opponent(turn))) {
+            board.setEnPassantSquare(enPassantSquare);
+        }
+
+        ChessGame game = new ChessGame();
+        game.setPosition(board, turn, halfmoveClock, fullmoveNumber);
+        return game;
+    }
+
+    /**
+     * Writes the game's position as a FEN record with all six fields
+     */
+    static String format(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        StringBuilder builder = new StringBuilder(TYPICAL_LENGTH);
+        for (int row = ChessBoard.BOARD_ROWS; row >= 1; row--) {
+            int emptyRun = 0;
+            for (int col = 1; col <= ChessBoard.BOARD_COLS; col++) {
+                int pieceIndex = board.pieceAt(Bitboards.square(row, col));
+                if (pieceIndex < 0) {
+                    emptyRun++;
+                    continue;
+                }
+                if (emptyRun > 0) {
+                    builder.append(emptyRun);
+                    emptyRun = 0;
+                }
+                builder.append(ChessBoard.PIECE_SYMBOLS.charAt(pieceIndex));
+            }
+            if (emptyRun > 0) {
+                builder.append(emptyRun);
+            }
+            if (row > 1) {
+                builder.append(ROW_SEPARATOR);
+            }
+        }
+
+        builder.append(FIELD_SEPARATOR).append(game.getTeamTurn() == TeamColor.WHITE ? 'w' : 'b');
+
+        builder.append(FIELD_SEPARATOR);
+        int castlingRights = board.castlingRights();
+        if (castlingRights == 0) {
+            builder.append(NONE);
+        }
+        for (int castle = 0; castle < ChessBoard.CASTLES; castle++) {
+            if ((castlingRights & (1 << castle)) != 0) {
+                builder.append(CASTLING_SYMBOLS.charAt(castle));
+            }
+        }
+
+        builder.append(FIELD_SEPARATOR);
+        int enPassantSquare = board.enPassantSquare();
+        if (enPassantSquare == ChessBoard.NO_SQUARE) {
+            builder.append(NONE);
+        } else {
+            builder.append((char) ('a' + Bitboards.column(enPassantSquare) - 1))
+                    .append(Bitboards.row(enPassantSquare));
+        }
+
+        return builder.append(FIELD_SEPARATOR).append(game.getHalfmoveClock())
+                .append(FIELD_SEPARATOR).append(game.getFullmoveNumber()).toString();
+    }
+
+    /**
+     * Walks a FEN record one character at a time
+     */
+    private static final class Reader {
+        private final String text;
+        private int index;
+
+        Reader(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            return index >= text.length();
+        }
+
+        IllegalArgumentException error(String problem) {
+            return new IllegalArgumentException("Invalid FEN \"" + text + "\": " + problem);
+        }
+
+        private char next(String expected) {
+            if (atEnd()) {
+                throw error("missing " + expected);
+            }
+            return text.charAt(index++);
+        }
+
+        void expectSeparator() {
+            if (next("field") != FIELD_SEPARATOR) {
+                throw error("expected a space at " + (index - 1));
+            }
+            // tolerate runs of spaces between fields
+            while (!atEnd() && text.charAt(index) == FIELD_SEPARATOR) {
+                index++;
+            }
+        }
+
+        void readPieces(ChessBoard board) {
+            for (int row = ChessBoard.BOARD_ROWS; row >= 1; row--) {
+                int col = 1;
+                while (col <= ChessBoard.BOARD_COLS) {
+                    char symbol = next("pieces");
+                    if (symbol >= '1' && symbol <= '8') {
+                        col += symbol - '0';
+                        continue;
+                    }
+                    int pieceIndex = ChessBoard.PIECE_SYMBOLS.indexOf(symbol);
+                    if (symbol == ROW_SEPARATOR) {
+                        throw error("row " + row + " is shorter than the board");
+                    } else if (pieceIndex < 0) {
+                        throw error("unknown piece '" + symbol + "'");
+                    }
+                    board.addPiece(Bitboards.square(row, col), pieceIndex);
+                    col++;
+                }
+                if (col != ChessBoard.BOARD_COLS + 1) {
+                    throw error("row " + row + " is longer than the board");
+                }
+                if (row > 1 && next("row") != ROW_SEPARATOR) {
+                    throw error("row " + row + " doesn't end with '/'");
+                }
+            }
+        }
+
+        TeamColor readTurn() {
+            return switch (next("team to move")) {
+                case 'w' -> TeamColor.WHITE;
+                case 'b' -> TeamColor.BLACK;
+                default -> throw error("team to move must be 'w' or 'b'");
+            };
+        }
+
+        int readCastlingRights() {
+            if (!atEnd() && text.charAt(index) == NONE) {
+                index++;
+                return 0;
+            }
+            int rights = 0;
+            while (!atEnd() && text.charAt(index) != FIELD_SEPARATOR) {
+                int castle = CASTLING_SYMBOLS.indexOf(text.charAt(index++));
+                if (castle < 0) {
+                    throw error("castling rights must be '-' or letters from KQkq");
+                }
+                rights |= 1 << castle;
+            }
+            if (rights == 0) {
+                throw error("missing castling rights");
+            }
+            return rights;
+        }
+
+        int readEnPassantSquare(TeamColor turn) {
+            char file = next("en passant square");
+            if (file == NONE) {
+                return ChessBoard.NO_SQUARE;
+            }
+            char rank = next("en passant square");
+            // the skipped square is behind the pawn of the team that just moved
+            int expectedRow = turn == TeamColor.WHITE ? ChessBoard.BOARD_ROWS - 2 : 3;
+            if (file < 'a' || file > 'h' || rank - '0' != expectedRow) {
+                throw error("en passant square must be on row " + expectedRow);
+            }
+            return Bitboards.square(expectedRow, file - 'a' + 1);
+        }
+
+        int readNumber(int minimum) {
+            int start = index;
+            int value = 0;
+            while (!atEnd() && text.charAt(index) >= '0' && text.charAt(index) <= '9') {
+                value = value * 10 + text.charAt(index++) - '0';
+                if (value > Short.MAX_VALUE) {
+                    throw error("move counter is too large");
+                }
+            }
+            if (index == start || value < minimum) {
+                throw error("move counters must be whole numbers of at least " + minimum);
+            }
+            return value;
+        }
+    }
+}
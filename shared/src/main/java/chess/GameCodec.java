@@ -0,0 +1,158 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Packs a game into a compact binary form for storage and transfer
+ * <p>
+ * The encoding is written and read by index without reflection:
+ * <ul>
+ * <li>byte 0: format version</li>
+ * <li>bytes 1-32: the board, one nibble per square holding the piece index + 1
+ * or 0 when empty, the lower square of each pair in the low nibble</li>
+ * <li>byte 33: bit 0 set when black is to move, bits 1-4 the castling
+ * rights</li>
+ * <li>byte 34: en passant square + 1, or 0 for none</li>
+ * <li>bytes 35-38: halfmove clock and fullmove number, two bytes each</li>
+ * <li>bytes 39-40: number of positions in the repetition history, followed by
+ * eight bytes for each position's Zobrist key, the current position last</li>
+ * </ul>
+ * Numbers are big-endian. A fresh game takes 49 bytes. Castling rights and the
+ * en passant square are checked against the pieces when a game is decoded, the
+ * same as when one is read from JSON.
+ */
+public final class GameCodec {
+
+    /**
+     * Version written as the first byte, bumped whenever the layout changes
+     */
+    public static final byte VERSION = 1;
+
+    private static final int BOARD_OFFSET = 1;
+    private static final int BOARD_BYTES = Bitboards.SQUARES / 2;
+    private static final int FLAGS_OFFSET = BOARD_OFFSET + BOARD_BYTES;
+    private static final int EN_PASSANT_OFFSET = FLAGS_OFFSET + 1;
+    private static final int HALFMOVE_OFFSET = EN_PASSANT_OFFSET + 1;
+    private static final int FULLMOVE_OFFSET = HALFMOVE_OFFSET + 2;
+    private static final int HISTORY_COUNT_OFFSET = FULLMOVE_OFFSET + 2;
+    private static final int HISTORY_OFFSET = HISTORY_COUNT_OFFSET + 2;
+    private static final int KEY_BYTES = Long.BYTES;
+
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int CASTLING_SHIFT = 1;
+    private static final int NIBBLE_MASK = 0xF;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int MAX_SHORT = 0xFFFF;
+
+    private GameCodec() {
+    }
+
+    /**
+     * @return the game's position, counters and repetition history packed into
+     *         bytes
+     */
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        // only positions since the last capture or pawn move can repeat, so the
+        // oldest keys of an overlong history are never needed
+        int historyCount = Math.min(game.historyCount(), MAX_SHORT);
+        int firstKey = game.historyCount() - historyCount;
+        byte[] bytes = new byte[HISTORY_OFFSET + historyCount * KEY_BYTES];
+        bytes[0] = VERSION;
+        for (int square = 0; square < Bitboards.SQUARES; square += 2) {
+            int low = board.pieceAt(square) + 1;
+            int high = board.pieceAt(square + 1) + 1;
+            bytes[BOARD_OFFSET + square / 2] = (byte) (low | high << 4);
+        }
+
+        int flags = board.castlingRights() << CASTLING_SHIFT;
+        if (game.getTeamTurn() == TeamColor.BLACK) {
+            flags |= BLACK_TO_MOVE;
+        }
+        bytes[FLAGS_OFFSET] = (byte) flags;
+        bytes[EN_PASSANT_OFFSET] = (byte) (board.enPassantSquare() + 1);
+        // counters beyond two bytes can't come up in a real game
+        writeShort(bytes, HALFMOVE_OFFSET, Math.min(game.getHalfmoveClock(), MAX_SHORT));
+        writeShort(bytes, FULLMOVE_OFFSET, Math.min(game.getFullmoveNumber(), MAX_SHORT));
+        writeShort(bytes, HISTORY_COUNT_OFFSET, historyCount);
+        for (int i = 0; i < historyCount; i++) {
+            writeLong(bytes, HISTORY_OFFSET + i * KEY_BYTES, game.historyKey(firstKey + i));
+        }
+        return bytes;
+    }
+
+    /**
+     * Rebuilds a game from bytes made by {@link #encode(ChessGame)}
+     *
+     * @throws IllegalArgumentException if the bytes aren't a game in this format
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes == null || bytes.length < HISTORY_OFFSET) {
+            throw new IllegalArgumentException("Encoded game is too short");
+        }
+        if (bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown encoded game version " + bytes[0]);
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            int pieceIndex = (bytes[BOARD_OFFSET + square / 2] >>> (square % 2 * 4) & NIBBLE_MASK) - 1;
+            if (pieceIndex >= Bitboards.PIECE_KINDS) {
+                throw new IllegalArgumentException("Encoded game has an unknown piece");
+            }
+            if (pieceIndex >= 0) {
+                board.addPiece(square, pieceIndex);
+            }
+        }
+
+        int flags = bytes[FLAGS_OFFSET] & BYTE_MASK;
+        board.setCastlingRights(flags >>> CASTLING_SHIFT & ChessBoard.ALL_CASTLING);
+        int enPassantSquare = (bytes[EN_PASSANT_OFFSET] & BYTE_MASK) - 1;
+        if (enPassantSquare >= Bitboards.SQUARES) {
+            throw new IllegalArgumentException("Encoded game has an invalid en passant square");
+        }
+        board.setEnPassantSquare(enPassantSquare);
+        board.dropUnbackedRights();
+        TeamColor turn = (flags & BLACK_TO_MOVE) != 0 ? TeamColor.BLACK : TeamColor.WHITE;
+
+        ChessGame game = new ChessGame();
+        game.setPosition(board, turn, readShort(bytes, HALFMOVE_OFFSET), readShort(bytes, FULLMOVE_OFFSET));
+
+        int historyCount = readShort(bytes, HISTORY_COUNT_OFFSET);
+        if (bytes.length != HISTORY_OFFSET + historyCount * KEY_BYTES) {
+            throw new IllegalArgumentException("Encoded game history has the wrong length");
+        }
+        if (historyCount > 0) {
+            long[] keys = new long[historyCount];
+            for (int i = 0; i < historyCount; i++) {
+                keys[i] = readLong(bytes, HISTORY_OFFSET + i * KEY_BYTES);
+            }
+            game.setHistory(keys, historyCount);
+        }
+        return game;
+    }
+
+    private static void writeShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 8);
+        bytes[offset + 1] = (byte) value;
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & BYTE_MASK) << 8 | (bytes[offset + 1] & BYTE_MASK);
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = KEY_BYTES - 1; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < KEY_BYTES; i++) {
+            value = value << 8 | (bytes[offset + i] & BYTE_MASK);
+        }
+        return value;
+    }
+}
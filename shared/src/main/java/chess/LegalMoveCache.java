@@ -0,0 +1,234 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * A bounded cache of every legal move a team has in a position, shared by all
+ * games in the process
+ * <p>
+ * Entries are keyed by the board's Zobrist key mixed with the team, so the same
+ * position reached in different games or by different move orders is only
+ * generated once. The cache is split into stripes that each hold an equal share
+ * of the entries behind their own lock, and each stripe evicts its least
+ * recently used entry once it is full.
+ * <p>
+ * The shared cache holds {@value #DEFAULT_CAPACITY} entries unless the
+ * {@value #CAPACITY_PROPERTY} system property says otherwise. A capacity of 0
+ * turns caching off so every lookup generates, which benchmarks use to time
+ * move generation itself.
+ */
+public final class LegalMoveCache {
+
+    /**
+     * System property holding the capacity of the shared cache
+     */
+    public static final String CAPACITY_PROPERTY = "chess.legalMoveCache.capacity";
+
+    /**
+     * Capacity of the shared cache when the system property isn't set
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final int DEFAULT_STRIPES = 16;
+
+    private static final LegalMoveCache SHARED = new LegalMoveCache(
+            Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY), DEFAULT_STRIPES);
+
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity most entries to hold across every stripe, 0 to cache
+     *                 nothing
+     * @param stripes  number of independently locked parts, rounded up to a
+     *                 power of two
+     */
+    LegalMoveCache(int capacity, int stripes) {
+        if (capacity < 0 || stripes < 1) {
+            throw new IllegalArgumentException("Capacity can't be negative and stripes must be positive");
+        }
+        if (capacity == 0) {
+            this.stripes = new Stripe[0];
+            return;
+        }
+        int stripeCount = Integer.bitCount(stripes) == 1 ? stripes : Integer.highestOneBit(stripes) << 1;
+        this.stripes = new Stripe[stripeCount];
+        int stripeCapacity = Math.max(1, capacity / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    /**
+     * @return the cache every {@link ChessGame} consults
+     */
+    public static LegalMoveCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * The legal moves and check status of one team in one position
+     */
+    static final class Entry {
+        // moves encoded with Move, in generation order
+        final int[] moves;
+        final boolean inCheck;
+
+        Entry(int[] moves, boolean inCheck) {
+            this.moves = moves;
+            this.inCheck = inCheck;
+        }
+
+        boolean hasMoves() {
+            return moves.length > 0;
+        }
+
+        /**
+         * @return the legal move matching the squares and promotion, or
+         *         {@link Move#NONE}
+         */
+        int find(int moveKey) {
+            for (int move : moves) {
+                if (Move.key(move) == moveKey) {
+                    return move;
+                }
+            }
+            return Move.NONE;
+        }
+    }
+
+    /**
+     * Gets the team's legal moves in the board's position, generating and storing
+     * them if they aren't cached
+     *
+     * @param scratch buffer to generate into on a miss
+     */
+    Entry lookup(ChessBoard board, TeamColor color, MoveList scratch) {
+        if (stripes.length == 0) {
+            misses.increment();
+            return generate(board, color, scratch);
+        }
+        long key = board.getZobristKey();
+        if (color == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        Stripe stripe = stripeFor(key);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.get(key);
+        }
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+
+        misses.increment();
+        // generate outside the lock, if another thread stores the same position
+        // first its entry is identical
+        entry = generate(board, color, scratch);
+        synchronized (stripe) {
+            stripe.put(key, entry);
+        }
+        return entry;
+    }
+
+    private static Entry generate(ChessBoard board, TeamColor color, MoveList scratch) {
+        MoveGenerator.generateLegalMoves(board, color, scratch);
+        int[] moves = new int[scratch.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = scratch.get(i);
+        }
+        int kingSquare = board.kingSquare(color);
+        boolean inCheck = kingSquare >= 0 && board.isSquareAttacked(kingSquare, Bitboards.opponent(color));
+        return new Entry(moves, inCheck);
+    }
+
+    private Stripe stripeFor(long key) {
+        // the low bits of a Zobrist key are as random as any others
+        return stripes[(int) key & (stripes.length - 1)];
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that had to generate moves
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of entries dropped to make room for newer ones
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return fraction of lookups answered from the cache, or 0 before any
+     *         lookups
+     */
+    public double hitRate() {
+        long hitCount = hitCount();
+        long total = hitCount + missCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return number of entries currently cached
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes every entry and resets the counters
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * One lock's share of the cache, kept in least recently used order
+     */
+    private final class Stripe extends LinkedHashMap<Long, Entry> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
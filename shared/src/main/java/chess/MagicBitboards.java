@@ -0,0 +1,162 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Sliding piece attack lookups using magic bitboards
+ * <p>
+ * For every square, the squares that could block a rook or bishop are masked out
+ * of the occupancy, multiplied by a "magic" constant and shifted so that every
+ * distinct blocker arrangement lands on its own slot of a precomputed attack
+ * table. The magics are searched for when the class loads and each table entry is
+ * filled in from {@link Bitboards#rookRayAttacks} or
+ * {@link Bitboards#bishopRayAttacks}, so every lookup agrees with the ray walker
+ * by construction.
+ */
+final class MagicBitboards {
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+    private static final long ROW_1 = 0xFFL;
+    private static final long ROW_8 = ROW_1 << 56;
+
+    // seeds for each row that find working magics quickly
+    private static final long[] SEEDS = { 728, 10316, 55013, 32803, 12281, 15100, 16645, 255 };
+
+    private static final Magic[] ROOK_MAGICS = new Magic[Bitboards.SQUARES];
+    private static final Magic[] BISHOP_MAGICS = new Magic[Bitboards.SQUARES];
+    private static final long[] ROOK_ATTACKS;
+    private static final long[] BISHOP_ATTACKS;
+
+    static {
+        ROOK_ATTACKS = buildTable(ROOK_MAGICS, true);
+        BISHOP_ATTACKS = buildTable(BISHOP_MAGICS, false);
+    }
+
+    private MagicBitboards() {
+    }
+
+    /**
+     * @return squares a rook on the square attacks given the occupied squares
+     */
+    static long rookAttacks(int square, long occupied) {
+        Magic magic = ROOK_MAGICS[square];
+        return ROOK_ATTACKS[magic.offset + magic.index(occupied)];
+    }
+
+    /**
+     * @return squares a bishop on the square attacks given the occupied squares
+     */
+    static long bishopAttacks(int square, long occupied) {
+        Magic magic = BISHOP_MAGICS[square];
+        return BISHOP_ATTACKS[magic.offset + magic.index(occupied)];
+    }
+
+    /**
+     * @return squares a queen on the square attacks given the occupied squares
+     */
+    static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    private static final class Magic {
+        final long mask;
+        final long multiplier;
+        final int shift;
+        final int offset;
+
+        Magic(long mask, long multiplier, int shift, int offset) {
+            this.mask = mask;
+            this.multiplier = multiplier;
+            this.shift = shift;
+            this.offset = offset;
+        }
+
+        int index(long occupied) {
+            return (int) (((occupied & mask) * multiplier) >>> shift);
+        }
+    }
+
+    private static long slowAttacks(boolean rook, int square, long occupied) {
+        return rook ? Bitboards.rookRayAttacks(square, occupied) : Bitboards.bishopRayAttacks(square, occupied);
+    }
+
+    private static long[] buildTable(Magic[] magics, boolean rook) {
+        // the table size is not known up front, so fill a worst case table and trim
+        // it once every square has found its magic
+        long[] table = new long[Bitboards.SQUARES * (1 << 12)];
+        long[] occupancies = new long[1 << 12];
+        long[] references = new long[1 << 12];
+        int[] epoch = new int[1 << 12];
+        int offset = 0;
+
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            // pieces on the edge of the board can't block anything behind them so
+            // they are left out of the mask
+            int row = Bitboards.row(square);
+            int col = Bitboards.column(square);
+            long edges = ((ROW_1 | ROW_8) & ~(ROW_1 << (8 * (row - 1))))
+                    | ((FILE_A | FILE_H) & ~(FILE_A << (col - 1)));
+            long mask = slowAttacks(rook, square, 0L) & ~edges;
+            int bits = Long.bitCount(mask);
+            int size = 1 << bits;
+
+            // enumerate every subset of the mask with the carry-rippler trick
+            long subset = 0L;
+            int count = 0;
+            do {
+                occupancies[count] = subset;
+                references[count] = slowAttacks(rook, square, subset);
+                count++;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+
+            Random random = new Random(SEEDS[row - 1]);
+            int attempt = 0;
+            long multiplier;
+            int i;
+            do {
+                // candidates with few bits set work far more often
+                do {
+                    multiplier = random.next() & random.next() & random.next();
+                } while (Long.bitCount((mask * multiplier) >>> 56) < 6);
+
+                // a magic works if no two blocker arrangements with different
+                // attacks share a slot
+                attempt++;
+                for (i = 0; i < count; i++) {
+                    int index = (int) ((occupancies[i] * multiplier) >>> (64 - bits));
+                    if (epoch[index] < attempt) {
+                        epoch[index] = attempt;
+                        table[offset + index] = references[i];
+                    } else if (table[offset + index] != references[i]) {
+                        break;
+                    }
+                }
+            } while (i < count);
+
+            Arrays.fill(epoch, 0);
+            magics[square] = new Magic(mask, multiplier, 64 - bits, offset);
+            offset += size;
+        }
+        return Arrays.copyOf(table, offset);
+    }
+
+    /**
+     * Small xorshift64* generator so the magic search is the same on every run
+     */
+    private static final class Random {
+        private long state;
+
+        Random(long seed) {
+            this.state = seed;
+        }
+
+        long next() {
+            state ^= state >>> 12;
+            state ^= state << 25;
+            state ^= state >>> 27;
+            return state * 2685821657736338717L;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package chess;
+
+import chess.ChessPiece.PieceType;
+
+/**
+ * Packs a move into a single int so the engine can generate, store and compare
+ * moves without allocating
+ * <p>
+ * The low 16 bits identify the move the same way a {@link ChessMove} does:
+ * <ul>
+ * <li>bits 0-5: start square</li>
+ * <li>bits 6-11: end square</li>
+ * <li>bits 12-14: promotion piece type ordinal + 1, or 0 for no promotion</li>
+ * </ul>
+ * The bits above that are flags the move generator fills in to describe the move
+ * to the rest of the engine. Two encodings describe the same move when their
+ * {@link #key(int)} values match.
+ */
+final class Move {
+
+    /**
+     * Not a move, used where a move may be missing
+     */
+    static final int NONE = 0;
+
+    /**
+     * The move captures a piece
+     */
+    static final int CAPTURE = 1 << 16;
+
+    /**
+     * A pawn moves two squares forward from its starting row
+     */
+    static final int DOUBLE_PUSH = 1 << 17;
+
+    /**
+     * The king castles, moving two squares toward a rook
+     */
+    static final int CASTLE = 1 << 18;
+
+    /**
+     * A pawn captures en passant, also flagged as a capture
+     */
+    static final int EN_PASSANT = 1 << 19;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final int KEY_MASK = 0xFFFF;
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Move() {
+    }
+
+    static int encode(int from, int to, PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << TO_SHIFT) | (promotionBits << PROMOTION_SHIFT) | flags;
+    }
+
+    static int encode(int from, int to) {
+        return from | (to << TO_SHIFT);
+    }
+
+    /**
+     * Encodes the squares and promotion of a ChessMove without any flags
+     */
+    static int fromChessMove(ChessMove move) {
+        return encode(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotion(move));
+    }
+
+    static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the promotion piece type, or null if the move isn't a promotion
+     */
+    static PieceType promotion(int move) {
+        int promotionBits = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return promotionBits == 0 ? null : TYPES[promotionBits - 1];
+    }
+
+    static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    /**
+     * @return the squares and promotion of the move with the flags stripped
+     */
+    static int key(int move) {
+        return move & KEY_MASK;
+    }
+}
@@ -0,0 +1,284 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Generates every legal move for one team in a single pass over its pieces
+ * <p>
+ * Legality is decided without playing moves out. The pieces giving check and the
+ * pieces pinned to the king are worked out once up front. When in check, moves
+ * other than the king's are limited to capturing the checker or blocking its
+ * ray, and a double check leaves only king moves. A pinned piece may only move
+ * along the line through its king and the pinning piece. The king is limited to
+ * squares no opposing piece attacks once the king has left its square, and may
+ * only castle out of check-free squares. En passant is the one move that takes
+ * two pieces off a line at once, so it is checked on its own.
+ */
+final class MoveGenerator {
+
+    private static final PieceType[] PROMOTION_TYPES = new PieceType[] { PieceType.QUEEN, PieceType.ROOK,
+            PieceType.BISHOP, PieceType.KNIGHT };
+
+    private static final long ALL_SQUARES = ~0L;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Fills the list with every legal move for the team, replacing what was in it
+     *
+     * @param board the board to generate moves on
+     * @param color the team to generate moves for
+     * @param moves the buffer to fill
+     */
+    static void generateLegalMoves(ChessBoard board, TeamColor color, MoveList moves) {
+        generateLegalMoves(board, color, ALL_SQUARES, moves);
+    }
+
+    /**
+     * Fills the list with the legal moves for the team's pieces on the given
+     * squares, replacing what was in it
+     *
+     * @param fromSquares squares of the pieces to generate moves for
+     */
+    static void generateLegalMoves(ChessBoard board, TeamColor color, long fromSquares, MoveList moves) {
+        moves.clear();
+        TeamColor opponent = Bitboards.opponent(color);
+        int kingSquare = board.kingSquare(color);
+        long occupied = board.occupancy();
+        long notOwnPieces = ~board.occupancy(color);
+
+        // without a king every move is legal
+        long checkMask = ALL_SQUARES;
+        long pinned = 0L;
+        if (kingSquare >= 0) {
+            long checkers = board.attackersTo(kingSquare, opponent, occupied);
+            if ((fromSquares & Bitboards.bit(kingSquare)) != 0) {
+                addKingMoves(board, opponent, moves, kingSquare, notOwnPieces);
+                if (checkers == 0) {
+                    addCastlingMoves(board, color, kingSquare, moves);
+                }
+            }
+            if (Long.bitCount(checkers) > 1) {
+                // only the king can get out of a double check
+                return;
+            }
+            if (checkers != 0) {
+                // capture the checker or block the ray it checks along
+                checkMask = checkers | Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+            }
+            pinned = pinnedPieces(board, kingSquare, color);
+        }
+
+        long pieces = board.occupancy(color) & fromSquares;
+        if (kingSquare >= 0) {
+            pieces &= ~Bitboards.bit(kingSquare);
+        }
+        for (; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            long allowed = checkMask & notOwnPieces;
+            if ((pinned & Bitboards.bit(from)) != 0) {
+                allowed &= Bitboards.LINE[kingSquare][from];
+            }
+            addPieceMoves(board, board.pieceAt(from), from, allowed, kingSquare, moves);
+        }
+    }
+
+    /**
+     * Fills the list with the moves a piece could make from a square, without
+     * checking whether they leave its king in danger
+     *
+     * @param pieceIndex the piece to move, which doesn't have to be the piece on
+     *                   the board at that square
+     */
+    static void generatePieceMoves(ChessBoard board, int pieceIndex, int from, MoveList moves) {
+        moves.clear();
+        addPieceMoves(board, pieceIndex, from, ~board.occupancy(Bitboards.colorOf(pieceIndex)),
+                ChessBoard.NO_SQUARE, moves);
+    }
+
+    /**
+     * Adds the moves of a piece that end on one of the allowed squares
+     *
+     * @param kingSquare the square of the team's king when generating legal
+     *                   moves, or {@link ChessBoard#NO_SQUARE} to skip checking
+     *                   en passant captures
+     */
+    private static void addPieceMoves(ChessBoard board, int pieceIndex, int from, long allowed, int kingSquare,
+            MoveList moves) {
+        TeamColor color = Bitboards.colorOf(pieceIndex);
+        long enemies = board.occupancy(Bitboards.opponent(color));
+        long occupied = board.occupancy();
+        switch (Bitboards.typeOf(pieceIndex)) {
+            case KING -> {
+                addTargets(moves, from, Bitboards.KING_ATTACKS[from] & allowed, enemies);
+                addCastlingMoves(board, color, from, moves);
+            }
+            case QUEEN -> addTargets(moves, from, MagicBitboards.queenAttacks(from, occupied) & allowed, enemies);
+            case BISHOP -> addTargets(moves, from, MagicBitboards.bishopAttacks(from, occupied) & allowed, enemies);
+            case KNIGHT -> addTargets(moves, from, Bitboards.KNIGHT_ATTACKS[from] & allowed, enemies);
+            case ROOK -> addTargets(moves, from, MagicBitboards.rookAttacks(from, occupied) & allowed, enemies);
+            case PAWN -> addPawnMoves(board, color, moves, from, allowed, kingSquare);
+        }
+    }
+
+    /**
+     * Finds the team's pieces that are the only thing standing between their king
+     * and an opposing slider
+     */
+    static long pinnedPieces(ChessBoard board, int kingSquare, TeamColor color) {
+        TeamColor opponent = Bitboards.opponent(color);
+        long queens = board.pieces(opponent, PieceType.QUEEN);
+        // sliders that would attack the king on an empty board
+        long snipers = (MagicBitboards.rookAttacks(kingSquare, 0L) & (board.pieces(opponent, PieceType.ROOK) | queens))
+                | (MagicBitboards.bishopAttacks(kingSquare, 0L)
+                        & (board.pieces(opponent, PieceType.BISHOP) | queens));
+
+        long pinned = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            long blockers = Bitboards.BETWEEN[kingSquare][sniper] & board.occupancy();
+            if (Long.bitCount(blockers) == 1 && (blockers & board.occupancy(color)) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    private static void addKingMoves(ChessBoard board, TeamColor opponent, MoveList moves, int kingSquare,
+            long notOwnPieces) {
+        // take the king off the board so sliders checking it also cover the squares
+        // behind it
+        long occupiedWithoutKing = board.occupancy() & ~Bitboards.bit(kingSquare);
+        long enemies = board.occupancy(opponent);
+        for (long targets = Bitboards.KING_ATTACKS[kingSquare] & notOwnPieces; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (!board.isSquareAttacked(to, opponent, occupiedWithoutKing)) {
+                moves.add(Move.encode(kingSquare, to, null, (enemies & Bitboards.bit(to)) != 0 ? Move.CAPTURE : 0));
+            }
+        }
+    }
+
+    /**
+     * Adds the castles the king still has the right to make, where the squares
+     * between king and rook are empty and the king neither starts in, passes
+     * through nor lands on an attacked square
+     */
+    private static void addCastlingMoves(ChessBoard board, TeamColor color, int kingSquare, MoveList moves) {
+        int rights = board.castlingRights();
+        if (rights == 0) {
+            return;
+        }
+        TeamColor opponent = Bitboards.opponent(color);
+        long occupied = board.occupancy();
+        long occupiedWithoutKing = occupied & ~Bitboards.bit(kingSquare);
+        int rookIndex = Bitboards.pieceIndex(color, PieceType.ROOK);
+        int firstCastle = color == TeamColor.WHITE ? 0 : 2;
+        boolean checkedKing = false;
+        for (int castle = firstCastle; castle < firstCastle + 2; castle++) {
+            int rookSquare = ChessBoard.CASTLE_ROOK_FROM[castle];
+            if ((rights & (1 << castle)) == 0 || ChessBoard.CASTLE_KING_FROM[castle] != kingSquare
+                    || board.pieceAt(rookSquare) != rookIndex
+                    || (Bitboards.BETWEEN[kingSquare][rookSquare] & occupied) != 0) {
+                continue;
+            }
+            if (!checkedKing) {
+                if (board.isSquareAttacked(kingSquare, opponent, occupied)) {
+                    return;
+                }
+                checkedKing = true;
+            }
+            int kingTo = ChessBoard.CASTLE_KING_TO[castle];
+            if (!board.isSquareAttacked(ChessBoard.CASTLE_ROOK_TO[castle], opponent, occupiedWithoutKing)
+                    && !board.isSquareAttacked(kingTo, opponent, occupiedWithoutKing)) {
+                moves.add(Move.encode(kingSquare, kingTo, null, Move.CASTLE));
+            }
+        }
+    }
+
+    private static void addTargets(MoveList moves, int from, long targets, long enemies) {
+        for (long captures = targets & enemies; captures != 0; captures &= captures - 1) {
+            moves.add(Move.encode(from, Long.numberOfTrailingZeros(captures), null, Move.CAPTURE));
+        }
+        for (long quiet = targets & ~enemies; quiet != 0; quiet &= quiet - 1) {
+            moves.add(Move.encode(from, Long.numberOfTrailingZeros(quiet)));
+        }
+    }
+
+    private static void addPawnMoves(ChessBoard board, TeamColor color, MoveList moves, int from, long allowed,
+            int kingSquare) {
+        boolean isWhite = color == TeamColor.WHITE;
+        int row = Bitboards.row(from);
+        int promotionRow = isWhite ? ChessBoard.BOARD_ROWS : 1;
+        if (row == promotionRow) {
+            return;
+        }
+        int startRow = isWhite ? 2 : ChessBoard.BOARD_ROWS - 1;
+        int forward = isWhite ? ChessBoard.BOARD_COLS : -ChessBoard.BOARD_COLS;
+
+        long empty = ~board.occupancy();
+        long single = Bitboards.bit(from + forward) & empty;
+        long pushes = single;
+        long doublePush = 0L;
+        if (single != 0 && row == startRow) {
+            doublePush = Bitboards.bit(from + 2 * forward) & empty & allowed;
+        }
+        pushes &= allowed;
+        long captures = Bitboards.PAWN_ATTACKS[color.ordinal()][from] & board.occupancy(Bitboards.opponent(color))
+                & allowed;
+
+        boolean canPromote = row + (isWhite ? 1 : -1) == promotionRow;
+        if (canPromote) {
+            addPromotions(moves, from, pushes, 0);
+            addPromotions(moves, from, captures, Move.CAPTURE);
+            return;
+        }
+        for (; captures != 0; captures &= captures - 1) {
+            moves.add(Move.encode(from, Long.numberOfTrailingZeros(captures), null, Move.CAPTURE));
+        }
+        // the square only belongs to the side to move, which is the side with an
+        // enemy pawn beside it to take
+        int enPassantSquare = board.enPassantSquare();
+        if (enPassantSquare != ChessBoard.NO_SQUARE
+                && (Bitboards.PAWN_ATTACKS[color.ordinal()][from] & Bitboards.bit(enPassantSquare)) != 0
+                && (board.pieces(Bitboards.opponent(color), PieceType.PAWN)
+                        & Bitboards.bit(Bitboards.square(row, Bitboards.column(enPassantSquare)))) != 0
+                && isEnPassantLegal(board, color, from, enPassantSquare, kingSquare)) {
+            moves.add(Move.encode(from, enPassantSquare, null, Move.CAPTURE | Move.EN_PASSANT));
+        }
+        if (pushes != 0) {
+            moves.add(Move.encode(from, from + forward));
+        }
+        if (doublePush != 0) {
+            moves.add(Move.encode(from, from + 2 * forward, null, Move.DOUBLE_PUSH));
+        }
+    }
+
+    /**
+     * Checks an en passant capture by taking both pawns off the board and seeing
+     * whether the king is left attacked. This covers a capture of the checking
+     * pawn, a pin on the capturing pawn and the rare pin along the row through
+     * both pawns, which the usual pin and check masks can't see.
+     *
+     * @param kingSquare the team's king, or {@link ChessBoard#NO_SQUARE} to allow
+     *                   the capture without checking
+     */
+    private static boolean isEnPassantLegal(ChessBoard board, TeamColor color, int from, int to, int kingSquare) {
+        if (kingSquare == ChessBoard.NO_SQUARE) {
+            return true;
+        }
+        long captured = Bitboards.bit(Bitboards.square(Bitboards.row(from), Bitboards.column(to)));
+        long occupied = (board.occupancy() ^ Bitboards.bit(from) ^ captured) | Bitboards.bit(to);
+        return (board.attackersTo(kingSquare, Bitboards.opponent(color), occupied) & ~captured) == 0;
+    }
+
+    private static void addPromotions(MoveList moves, int from, long targets, int flags) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            for (PieceType promotionType : PROMOTION_TYPES) {
+                moves.add(Move.encode(from, to, promotionType, flags));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A reusable, growable buffer of moves encoded with {@link Move}, so generating
+ * moves doesn't allocate a ChessMove for every candidate
+ */
+final class MoveList {
+
+    // more than the most legal moves any position can have
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    MoveList(int capacity) {
+        this.moves = new int[capacity];
+        this.size = 0;
+    }
+
+    void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+    }
+
+    int get(int index) {
+        return moves[index];
+    }
+
+    void swap(int first, int second) {
+        int move = moves[first];
+        moves[first] = moves[second];
+        moves[second] = move;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Finds a move by its squares and promotion, ignoring flags
+     *
+     * @return the matching move, or {@link Move#NONE} if it isn't in the list
+     */
+    int find(int moveKey) {
+        for (int i = 0; i < size; i++) {
+            if (Move.key(moves[i]) == moveKey) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Converts the buffered moves for callers outside the engine
+     */
+    Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> chessMoves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(Move.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+}
@@ -0,0 +1,213 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Counts the positions reachable from a game in an exact number of moves
+ * <p>
+ * Perft numbers for well known positions are published, so comparing against
+ * them checks the move generator, and timing the count measures how fast moves
+ * are generated and made. Moves are made and unmade in place on a copy of the
+ * board, so counting never changes the game passed in.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * The outcome of a timed perft run
+     *
+     * @param divide       leaf count below each legal move from the starting
+     *                     position, in generation order
+     * @param nodes        total leaf count
+     * @param elapsedNanos wall clock time taken to count
+     */
+    public record Result(Map<ChessMove, Long> divide, long nodes, long elapsedNanos) {
+
+        /**
+         * @return leaf nodes counted per second of wall clock time
+         */
+        public double nodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    /**
+     * Counts the leaf nodes of the move tree from the game's position
+     *
+     * @param game  the game to count from, left unchanged
+     * @param depth how many moves deep to count, 0 counts just the position
+     * @return number of positions reachable in exactly {@code depth} moves
+     */
+    public static long perft(ChessGame game, int depth) {
+        checkDepth(depth);
+        return count(game.getBoard().clone(), game.getTeamTurn(), depth, newBuffers(depth));
+    }
+
+    /**
+     * Counts the leaf nodes below each legal move from the game's position, which
+     * narrows down where a perft count goes wrong
+     *
+     * @param depth how many moves deep to count, including the root move
+     * @return leaf count below each root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        checkDepth(depth);
+        Map<ChessMove, Long> divide = new LinkedHashMap<>();
+        if (depth == 0) {
+            return divide;
+        }
+        ChessBoard board = game.getBoard().clone();
+        TeamColor color = game.getTeamTurn();
+        MoveList[] buffers = newBuffers(depth);
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, color, rootMoves);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            board.makeMove(move);
+            divide.put(Move.toChessMove(move), count(board, Bitboards.opponent(color), depth - 1, buffers));
+            board.unmakeMove();
+        }
+        return divide;
+    }
+
+    /**
+     * Divides the count across a pool, giving each root move its own task and
+     * copy of the board, and times the whole run
+     *
+     * @param pool the pool to count in
+     * @return the per move and total counts with the time taken
+     */
+    public static Result run(ChessGame game, int depth, ForkJoinPool pool) {
+        checkDepth(depth);
+        long start = System.nanoTime();
+        Map<ChessMove, Long> divide;
+        long nodes;
+        if (depth == 0) {
+            divide = Collections.emptyMap();
+            nodes = 1;
+        } else {
+            divide = pool.invoke(new DivideTask(game.getBoard().clone(), game.getTeamTurn(), depth));
+            nodes = 0;
+            for (long count : divide.values()) {
+                nodes += count;
+            }
+        }
+        return new Result(divide, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs perft from the starting position, or a position given in FEN, and
+     * prints the divide and speed
+     * <p>
+     * Usage: {@code Perft [depth] [threads] [fen]}
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        ChessGame game = args.length > 2 ? ChessGame.fromFen(args[2]) : new ChessGame();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Result result = run(game, depth, pool);
+            for (Map.Entry<ChessMove, Long> entry : result.divide().entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+            }
+            System.out.printf("depth %d: %d nodes in %.3f s (%.0f nodes/s, %d threads)%n", depth, result.nodes(),
+                    result.elapsedNanos() / 1e9, result.nodesPerSecond(), threads);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long count(ChessBoard board, TeamColor color, int depth, MoveList[] buffers) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = buffers[depth];
+        MoveGenerator.generateLegalMoves(board, color, moves);
+        // every legal move is a leaf, so there is no need to make them
+        if (depth == 1) {
+            return moves.size();
+        }
+        TeamColor opponent = Bitboards.opponent(color);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(board, opponent, depth - 1, buffers);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // one buffer per ply so deeper plies don't overwrite moves still being walked
+    private static MoveList[] newBuffers(int depth) {
+        MoveList[] buffers = new MoveList[depth + 1];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new MoveList();
+        }
+        return buffers;
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative");
+        }
+    }
+
+    private static final class DivideTask extends RecursiveTask<Map<ChessMove, Long>> {
+        private final ChessBoard board;
+        private final TeamColor color;
+        private final int depth;
+
+        DivideTask(ChessBoard board, TeamColor color, int depth) {
+            this.board = board;
+            this.color = color;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Map<ChessMove, Long> compute() {
+            MoveList rootMoves = new MoveList();
+            MoveGenerator.generateLegalMoves(board, color, rootMoves);
+            List<MoveTask> tasks = new ArrayList<>(rootMoves.size());
+            for (int i = 0; i < rootMoves.size(); i++) {
+                ChessBoard child = board.clone();
+                child.makeMove(rootMoves.get(i));
+                tasks.add(new MoveTask(child, Bitboards.opponent(color), depth - 1));
+            }
+            invokeAll(tasks);
+
+            Map<ChessMove, Long> divide = new LinkedHashMap<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                divide.put(Move.toChessMove(rootMoves.get(i)), tasks.get(i).join());
+            }
+            return divide;
+        }
+    }
+
+    private static final class MoveTask extends RecursiveTask<Long> {
+        private final ChessBoard board;
+        private final TeamColor color;
+        private final int depth;
+
+        MoveTask(ChessBoard board, TeamColor color, int depth) {
+            this.board = board;
+            this.color = color;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            return count(board, color, depth, newBuffers(depth));
+        }
+    }
+}
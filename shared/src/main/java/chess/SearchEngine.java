@@ -0,0 +1,463 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Picks a move for the team to move by searching the game tree
+ * <p>
+ * The search deepens one move at a time until the time budget runs out, and the
+ * best move from the deepest finished search is played. Each search is a
+ * negamax alpha-beta search that tries the best move from the transposition
+ * table first, then captures ordered by most valuable victim and least valuable
+ * attacker, then moves that caused a cutoff at the same depth elsewhere. At the
+ * end of the main search captures are played out until the position is quiet
+ * so a hanging piece isn't missed.
+ * <p>
+ * With more than one thread the engine runs a lazy SMP search. Helper threads
+ * search the same root at staggered depths and share the transposition table
+ * with the main thread, so the main search finds more of its positions already
+ * scored. Only the main thread's result is used.
+ * <p>
+ * An engine keeps its transposition table between searches and is not safe to
+ * use from more than one thread at once. An engine with helper threads must be
+ * closed to stop them.
+ */
+public final class SearchEngine implements AutoCloseable {
+
+    /**
+     * The deepest the search will go, in moves from the root
+     */
+    public static final int MAX_DEPTH = 64;
+
+    static final int INFINITY = 32000;
+    static final int MATE = 31000;
+    // scores beyond this are a forced mate, which is stored relative to the
+    // position it was found in rather than the root
+    static final int MATE_BOUND = MATE - 2 * MAX_DEPTH;
+
+    private static final int MAX_PLY = 2 * MAX_DEPTH;
+    private static final int DEFAULT_TABLE_BITS = 16;
+    // how many nodes to search between looking at the clock
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    private static final int TABLE_MOVE_ORDER = 1_000_000;
+    private static final int CAPTURE_ORDER = 100_000;
+    private static final int PROMOTION_ORDER = 90_000;
+    private static final int KILLER_ORDER = 80_000;
+
+    private final TranspositionTable table;
+    private final Worker[] workers;
+    private final ExecutorService helperPool;
+
+    // set once the main thread is done so the helpers stop too
+    private volatile boolean stopRequested;
+    private volatile long deadline;
+
+    public SearchEngine() {
+        this(DEFAULT_TABLE_BITS, 1);
+    }
+
+    /**
+     * @param tableBits log2 of the number of transposition table slots
+     * @param threads   number of threads to search with, including the calling
+     *                  thread
+     */
+    public SearchEngine(int tableBits, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        table = new TranspositionTable(tableBits);
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i);
+        }
+        helperPool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The outcome of a search
+     *
+     * @param bestMove      the move to play, or null if the team has no legal
+     *                      moves
+     * @param score         how good the position is for the team to move after
+     *                      the best move, in centipawns
+     * @param depth         depth of the deepest search the main thread finished
+     * @param nodes         positions visited across every thread
+     * @param elapsedMillis wall clock time the search took
+     * @param threads       number of threads that searched
+     */
+    public record Result(ChessMove bestMove, int score, int depth, long nodes, long elapsedMillis, int threads) {
+
+        /**
+         * @return positions visited per second of wall clock time
+         */
+        public double nodesPerSecond() {
+            return elapsedMillis == 0 ? nodes * 1000.0 : nodes * 1000.0 / elapsedMillis;
+        }
+    }
+
+    /**
+     * Searches for the best move for the team whose turn it is
+     *
+     * @param game             the game to search, left unchanged
+     * @param timeBudgetMillis how long the search may take, a search one move
+     *                         deep always finishes even if it takes longer
+     * @return the best move found in the time
+     */
+    public Result search(ChessGame game, long timeBudgetMillis) {
+        return search(game, timeBudgetMillis, MAX_DEPTH);
+    }
+
+    /**
+     * Searches for the best move for the team whose turn it is, stopping at the
+     * given depth even if there is time left
+     */
+    public Result search(ChessGame game, long timeBudgetMillis, int maxDepth) {
+        long start = System.currentTimeMillis();
+        deadline = start + timeBudgetMillis;
+        stopRequested = false;
+        TeamColor color = game.getTeamTurn();
+        int depthLimit = Math.min(maxDepth, MAX_DEPTH);
+
+        List<Future<?>> helpers = new ArrayList<>(workers.length - 1);
+        for (int i = 1; i < workers.length; i++) {
+            Worker helper = workers[i];
+            helper.reset(game.getBoard().clone());
+            helpers.add(helperPool.submit(() -> helper.iterate(color, depthLimit, start, timeBudgetMillis)));
+        }
+        Worker main = workers[0];
+        main.reset(game.getBoard().clone());
+        main.iterate(color, depthLimit, start, timeBudgetMillis);
+
+        stopRequested = true;
+        long nodes = main.nodes;
+        for (int i = 0; i < helpers.size(); i++) {
+            try {
+                helpers.get(i).get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Search helper failed", ex.getCause());
+            }
+            nodes += workers[i + 1].nodes;
+        }
+
+        ChessMove chessMove = main.bestMove == Move.NONE ? null : Move.toChessMove(main.bestMove);
+        return new Result(chessMove, main.bestScore, main.completedDepth, nodes, System.currentTimeMillis() - start,
+                workers.length);
+    }
+
+    /**
+     * Forgets everything learned in earlier searches
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Stops the helper threads, the engine can't search afterwards if it had any
+     */
+    @Override
+    public void close() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+
+    /**
+     * The search state of one thread, everything but the transposition table is
+     * its own
+     */
+    private final class Worker {
+        private final int id;
+        private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+        private final int[][] orderScores = new int[MAX_PLY + 1][];
+        private final int[][] killers = new int[MAX_PLY + 1][2];
+
+        private ChessBoard board;
+        private int rootBestMove;
+        private long nodes;
+        private boolean canStop;
+        private boolean stopped;
+
+        private int bestMove;
+        private int bestScore;
+        private int completedDepth;
+
+        Worker(int id) {
+            this.id = id;
+            for (int ply = 0; ply <= MAX_PLY; ply++) {
+                moveLists[ply] = new MoveList();
+                orderScores[ply] = new int[0];
+            }
+        }
+
+        void reset(ChessBoard board) {
+            this.board = board;
+            nodes = 0;
+            stopped = false;
+            bestMove = Move.NONE;
+            bestScore = 0;
+            completedDepth = 0;
+            for (int[] plyKillers : killers) {
+                plyKillers[0] = Move.NONE;
+                plyKillers[1] = Move.NONE;
+            }
+        }
+
+        /**
+         * Deepens the search one move at a time until out of time, told to stop or
+         * at the depth limit
+         */
+        void iterate(TeamColor color, int depthLimit, long start, long timeBudgetMillis) {
+            boolean helper = id > 0;
+            // odd helpers start a move deeper so the threads don't all search the
+            // same depth at the same time
+            int firstDepth = helper ? 1 + id % 2 : 1;
+            for (int depth = firstDepth; depth <= depthLimit; depth++) {
+                // the main thread always finishes a one move search so there is a
+                // move to play
+                canStop = helper || depth > 1;
+                rootBestMove = Move.NONE;
+                int score = negamax(depth, -INFINITY, INFINITY, 0, color);
+                if (stopped) {
+                    break;
+                }
+                bestMove = rootBestMove;
+                bestScore = score;
+                completedDepth = depth;
+                if (helper) {
+                    continue;
+                }
+                // a mate can't be improved on by looking deeper
+                if (Math.abs(score) >= MATE_BOUND) {
+                    break;
+                }
+                // the next search takes several times as long as this one, so
+                // don't start one that won't finish
+                if (System.currentTimeMillis() - start > timeBudgetMillis / 2) {
+                    break;
+                }
+            }
+            board = null;
+        }
+
+        private int negamax(int depth, int alpha, int beta, int ply, TeamColor color) {
+            if (ply >= MAX_PLY) {
+                return Evaluation.evaluate(board, color);
+            }
+            if (depth <= 0) {
+                return quiesce(alpha, beta, ply, color);
+            }
+            if (clockExpired()) {
+                return 0;
+            }
+
+            long key = positionKey(color);
+            long entry = table.probe(key);
+            int tableMove = Move.NONE;
+            if (entry != TranspositionTable.MISSING) {
+                tableMove = TranspositionTable.move(entry);
+                if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+
+            MoveList moves = moveLists[ply];
+            MoveGenerator.generateLegalMoves(board, color, moves);
+            boolean inCheck = isInCheck(color);
+            if (moves.isEmpty()) {
+                return inCheck ? -MATE + ply : 0;
+            }
+            // look one move further when in check so a mate threat isn't cut off
+            if (inCheck) {
+                depth++;
+            }
+            scoreMoves(moves, ply, tableMove);
+
+            TeamColor opponent = Bitboards.opponent(color);
+            int originalAlpha = alpha;
+            int bestMove = Move.NONE;
+            int bestScore = -INFINITY;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = pickNext(moves, ply, i);
+                board.makeMove(move);
+                int score = -negamax(depth - 1, -beta, -alpha, ply + 1, opponent);
+                board.unmakeMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                    if (ply == 0) {
+                        rootBestMove = move;
+                    }
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+                if (alpha >= beta) {
+                    if (!Move.isCapture(move) && killers[ply][0] != move) {
+                        killers[ply][1] = killers[ply][0];
+                        killers[ply][0] = move;
+                    }
+                    break;
+                }
+            }
+
+            int bound = bestScore >= beta ? TranspositionTable.LOWER
+                    : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+            return bestScore;
+        }
+
+        /**
+         * Plays out captures and promotions until the position is quiet, letting the
+         * team to move stop whenever standing still is better
+         */
+        private int quiesce(int alpha, int beta, int ply, TeamColor color) {
+            if (clockExpired()) {
+                return 0;
+            }
+            int standPat = Evaluation.evaluate(board, color);
+            if (standPat >= beta || ply >= MAX_PLY) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+
+            MoveList moves = moveLists[ply];
+            MoveGenerator.generateLegalMoves(board, color, moves);
+            scoreMoves(moves, ply, Move.NONE);
+            TeamColor opponent = Bitboards.opponent(color);
+            for (int i = 0; i < moves.size(); i++) {
+                int move = pickNext(moves, ply, i);
+                // moves are sorted so every capture and promotion comes before the
+                // quiet moves
+                if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                    break;
+                }
+                board.makeMove(move);
+                int score = -quiesce(-beta, -alpha, ply + 1, opponent);
+                board.unmakeMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    return score;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+            }
+            return alpha;
+        }
+
+        private boolean clockExpired() {
+            nodes++;
+            if ((nodes & CLOCK_CHECK_MASK) == 0
+                    && (stopRequested || (canStop && System.currentTimeMillis() >= deadline))) {
+                stopped = true;
+            }
+            return stopped;
+        }
+
+        private void scoreMoves(MoveList moves, int ply, int tableMove) {
+            if (orderScores[ply].length < moves.size()) {
+                orderScores[ply] = new int[moves.size() * 2];
+            }
+            int[] scores = orderScores[ply];
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                int score = 0;
+                if (tableMove != Move.NONE && Move.key(move) == Move.key(tableMove)) {
+                    score = TABLE_MOVE_ORDER;
+                } else if (Move.isCapture(move)) {
+                    // most valuable victim first, least valuable attacker to break ties,
+                    // an en passant victim is a pawn just like its attacker
+                    int attacker = board.pieceAt(Move.from(move));
+                    int victim = Move.isEnPassant(move) ? attacker : board.pieceAt(Move.to(move));
+                    score = CAPTURE_ORDER + Evaluation.pieceValue(victim) * 10 - Evaluation.pieceValue(attacker) / 10;
+                } else if (Move.isPromotion(move)) {
+                    score = PROMOTION_ORDER + Evaluation.PIECE_VALUES[Move.promotion(move).ordinal()];
+                } else if (move == killers[ply][0]) {
+                    score = KILLER_ORDER;
+                } else if (move == killers[ply][1]) {
+                    score = KILLER_ORDER - 1;
+                }
+                scores[i] = score;
+            }
+        }
+
+        /**
+         * Moves the best scoring of the remaining moves to the given index and
+         * returns it, sorting lazily since most nodes cut off after a few moves
+         */
+        private int pickNext(MoveList moves, int ply, int index) {
+            int[] scores = orderScores[ply];
+            int best = index;
+            for (int i = index + 1; i < moves.size(); i++) {
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            if (best != index) {
+                moves.swap(index, best);
+                int score = scores[index];
+                scores[index] = scores[best];
+                scores[best] = score;
+            }
+            return moves.get(index);
+        }
+
+        private boolean isInCheck(TeamColor color) {
+            int kingSquare = board.kingSquare(color);
+            return kingSquare >= 0 && board.isSquareAttacked(kingSquare, Bitboards.opponent(color));
+        }
+
+        private long positionKey(TeamColor color) {
+            long key = board.getZobristKey();
+            return color == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+        }
+    }
+
+    // mate scores are counted from the root, make them count from this position
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
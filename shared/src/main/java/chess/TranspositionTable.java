@@ -0,0 +1,110 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size hash table of search results keyed by Zobrist key
+ * <p>
+ * Each slot holds a packed entry next to the position's key xor the entry, so a
+ * lookup that lands on a slot used by a different position is recognised and
+ * ignored. A new result replaces the old one unless the old one is for the same
+ * position and was searched deeper.
+ * <p>
+ * Search threads share one table without locking. Two threads writing the same
+ * slot at once can leave the key of one with the entry of the other, but then
+ * the xor no longer gives back either key and the slot reads as missing.
+ */
+final class TranspositionTable {
+
+    /**
+     * The score is exact
+     */
+    static final int EXACT = 0;
+
+    /**
+     * The score is at least this much, the search failed high
+     */
+    static final int LOWER = 1;
+
+    /**
+     * The score is at most this much, the search failed low
+     */
+    static final int UPPER = 2;
+
+    /**
+     * Returned by {@link #probe(long)} when the position isn't stored
+     */
+    static final long MISSING = 0L;
+
+    // entry layout, the valid bit keeps a stored entry from ever equalling
+    // MISSING
+    private static final int MOVE_BITS = 24;
+    private static final int DEPTH_SHIFT = 24;
+    private static final int BOUND_SHIFT = 32;
+    private static final int SCORE_SHIFT = 48;
+    private static final long VALID = 1L << 34;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+
+    // key ^ entry for each slot
+    private final long[] checks;
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * @param bits log2 of the number of slots
+     */
+    TranspositionTable(int bits) {
+        checks = new long[1 << bits];
+        entries = new long[1 << bits];
+        mask = (1 << bits) - 1;
+    }
+
+    /**
+     * @return the entry stored for the position, or {@link #MISSING}
+     */
+    long probe(long key) {
+        int slot = (int) key & mask;
+        // read each half once so both come from the same moment
+        long entry = entries[slot];
+        long check = checks[slot];
+        return (check ^ entry) == key ? entry : MISSING;
+    }
+
+    void store(long key, int move, int score, int depth, int bound) {
+        long existing = probe(key);
+        if (existing != MISSING && depth(existing) > depth) {
+            return;
+        }
+        int slot = (int) key & mask;
+        long entry = pack(move, score, depth, bound);
+        entries[slot] = entry;
+        checks[slot] = key ^ entry;
+    }
+
+    void clear() {
+        Arrays.fill(checks, 0L);
+        Arrays.fill(entries, MISSING);
+    }
+
+    static long pack(int move, int score, int depth, int bound) {
+        return (move & MOVE_MASK) | ((long) depth << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT) | VALID
+                | ((long) score << SCORE_SHIFT);
+    }
+
+    static int move(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    static int score(long entry) {
+        // arithmetic shift brings back the sign
+        return (int) (entry >> SCORE_SHIFT);
+    }
+}
@@ -0,0 +1,57 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of chess positions
+ * <p>
+ * A position's key is the exclusive or of the keys for every piece on its square
+ * plus keys for the castling rights, the en passant column and the side to move,
+ * so making or taking back a move only needs to xor in the handful of keys that
+ * changed. The keys come from a fixed seed so they are the same in every
+ * process.
+ */
+final class Zobrist {
+
+    private static final long SEED = 0x240C4E55L;
+
+    /**
+     * Key for each piece index on each square
+     */
+    static final long[][] PIECE_SQUARE = new long[Bitboards.PIECE_KINDS][Bitboards.SQUARES];
+
+    /**
+     * Key mixed in when it is black's turn
+     */
+    static final long BLACK_TO_MOVE;
+
+    /**
+     * Key for each set of castling rights, no rights has no key so a board that
+     * never had any hashes by its pieces alone
+     */
+    static final long[] CASTLING = new long[ChessBoard.ALL_CASTLING + 1];
+
+    /**
+     * Key for the column of the en passant square, by column - 1
+     */
+    static final long[] EN_PASSANT_COLUMN = new long[ChessBoard.BOARD_COLS];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] squareKeys : PIECE_SQUARE) {
+            for (int square = 0; square < squareKeys.length; square++) {
+                squareKeys[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int col = 0; col < EN_PASSANT_COLUMN.length; col++) {
+            EN_PASSANT_COLUMN[col] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}
@@ -0,0 +1,37 @@
+package model;
+
+/**
+ * What a game list shows about a game, without the board
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName,
+        Status status) {
+
+    public enum Status {
+        /** At least one seat is still free */
+        OPEN,
+        /** Both seats are taken and the game is being played */
+        IN_PROGRESS,
+        /** The game ended in checkmate or a draw */
+        FINISHED
+    }
+
+    /**
+     * @param finished whether the game has ended
+     * @return the status of a game with these players
+     */
+    public static Status statusOf(String whiteUsername, String blackUsername, boolean finished) {
+        if (finished) {
+            return Status.FINISHED;
+        }
+        return whiteUsername == null || blackUsername == null ? Status.OPEN : Status.IN_PROGRESS;
+    }
+
+    /**
+     * Summarizes a fully loaded game
+     */
+    public static GameSummary of(GameData gameData) {
+        boolean finished = gameData.game() != null && gameData.game().isOver();
+        return new GameSummary(gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(),
+                gameData.gameName(), statusOf(gameData.whiteUsername(), gameData.blackUsername(), finished));
+    }
+}
@@ -0,0 +1,85 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+public class DrawTests {
+
+    private static final String[] KNIGHT_SHUFFLE = { "g1f3", "g8f6", "f3g1", "f6g8" };
+
+    @Test
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        play(game, KNIGHT_SHUFFLE);
+        Assertions.assertEquals(2, game.getRepetitionCount());
+        Assertions.assertFalse(game.isDrawByRepetition());
+
+        // a copy sent over the wire still knows the history
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        play(game, KNIGHT_SHUFFLE);
+        play(copy, KNIGHT_SHUFFLE);
+        Assertions.assertEquals(3, game.getRepetitionCount());
+        Assertions.assertTrue(game.isDrawByRepetition());
+        Assertions.assertTrue(copy.isDraw());
+        Assertions.assertEquals(8, game.getHalfmoveClock());
+    }
+
+    @Test
+    public void pawnMoveClearsHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        play(game, "e2e4");
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        play(game, "e7e5");
+        play(game, KNIGHT_SHUFFLE);
+        play(game, KNIGHT_SHUFFLE);
+        Assertions.assertEquals(3, game.getRepetitionCount());
+        Assertions.assertEquals(8, game.getHalfmoveClock());
+    }
+
+    @Test
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 1), ChessPiece.of(TeamColor.WHITE, PieceType.KING));
+        board.addPiece(ChessPosition.of(8, 8), ChessPiece.of(TeamColor.BLACK, PieceType.KING));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        // bare kings can't capture anything, so every move counts toward the rule
+        Random random = new Random(50);
+        for (int ply = 0; ply < 100; ply++) {
+            Assertions.assertFalse(game.isDrawByFiftyMoveRule());
+            List<ChessMove> moves = new ArrayList<>(game.legalMoves(game.getTeamTurn()));
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertTrue(game.isDrawByFiftyMoveRule());
+        Assertions.assertTrue(game.isDraw());
+    }
+
+    @Test
+    public void historyIsNotPartOfEquality() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals(new ChessGame().hashCode(), game.hashCode());
+    }
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(new ChessMove(ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                    ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1)));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package chess;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+public class EvaluationTests {
+
+    @Test
+    public void startPositionIsEven() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        Assertions.assertEquals(0, board.materialScore());
+        Assertions.assertEquals(0, board.pieceSquareScore());
+        Assertions.assertEquals(0, Evaluation.evaluate(board, TeamColor.BLACK));
+    }
+
+    @Test
+    public void mirroredPositionScoresTheSameForTheOtherTeam() {
+        ChessBoard board = new ChessBoard();
+        ChessBoard mirrored = new ChessBoard();
+        place(board, mirrored, TeamColor.WHITE, PieceType.KING, 1, 7);
+        place(board, mirrored, TeamColor.WHITE, PieceType.KNIGHT, 3, 6);
+        place(board, mirrored, TeamColor.WHITE, PieceType.PAWN, 4, 5);
+        place(board, mirrored, TeamColor.BLACK, PieceType.KING, 8, 3);
+        place(board, mirrored, TeamColor.BLACK, PieceType.ROOK, 7, 1);
+
+        Assertions.assertNotEquals(0, Evaluation.evaluate(board, TeamColor.WHITE));
+        Assertions.assertEquals(Evaluation.evaluate(board, TeamColor.WHITE),
+                Evaluation.evaluate(mirrored, TeamColor.BLACK));
+    }
+
+    @Test
+    public void incrementalScoreMatchesRescan() throws InvalidMoveException {
+        Random random = new Random(16);
+        Gson gson = new Gson();
+        for (int game = 0; game < 20; game++) {
+            ChessGame chessGame = new ChessGame();
+            for (int ply = 0; ply < 100; ply++) {
+                ChessBoard board = chessGame.getBoard();
+                int score = board.materialScore() + board.pieceSquareScore();
+                Assertions.assertEquals(Evaluation.evaluateFromScratch(board), score);
+
+                ChessBoard copy = gson.fromJson(gson.toJson(board), ChessBoard.class);
+                Assertions.assertEquals(score, copy.materialScore() + copy.pieceSquareScore());
+
+                Object[] moves = chessGame.legalMoves(chessGame.getTeamTurn()).toArray();
+                if (moves.length == 0) {
+                    break;
+                }
+                ChessMove move = (ChessMove) moves[random.nextInt(moves.length)];
+                board.makeMove(move);
+                board.unmakeMove();
+                Assertions.assertEquals(score, board.materialScore() + board.pieceSquareScore());
+                chessGame.makeMove(move);
+            }
+        }
+    }
+
+    // places a piece on one board and the color swapped piece on the mirrored
+    // square of the other
+    private static void place(ChessBoard board, ChessBoard mirrored, TeamColor color, PieceType type, int row,
+            int col) {
+        board.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, type));
+        mirrored.addPiece(ChessPosition.of(ChessBoard.BOARD_ROWS + 1 - row, col),
+                ChessPiece.of(Bitboards.opponent(color), type));
+    }
+}
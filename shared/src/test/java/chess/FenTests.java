@@ -0,0 +1,70 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import chess.ChessGame.TeamColor;
+
+public class FenTests {
+
+    @Test
+    public void startPositionRoundTrips() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(Fen.START_POSITION, game.toFen());
+        Assertions.assertEquals(game, ChessGame.fromFen(Fen.START_POSITION));
+        Assertions.assertEquals(game.getZobristKey(), ChessGame.fromFen(Fen.START_POSITION).getZobristKey());
+
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        game.makeMove(new ChessMove(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null));
+        game.makeMove(new ChessMove(ChessPosition.of(1, 5), ChessPosition.of(2, 5), null));
+        Assertions.assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPPKPPP/RNBQ1BNR b kq - 2 2", game.toFen());
+    }
+
+    @Test
+    public void parsedStateMatchesPlayedGame() throws InvalidMoveException {
+        ChessGame played = new ChessGame();
+        played.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        played.makeMove(new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(6, 1), null));
+        played.makeMove(new ChessMove(ChessPosition.of(4, 5), ChessPosition.of(5, 5), null));
+        played.makeMove(new ChessMove(ChessPosition.of(7, 4), ChessPosition.of(5, 4), null));
+        String fen = played.toFen();
+        Assertions.assertEquals("rnbqkbnr/1pp1pppp/p7/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3", fen);
+
+        ChessGame parsed = ChessGame.fromFen(fen);
+        Assertions.assertEquals(played, parsed);
+        Assertions.assertEquals(played.getZobristKey(), parsed.getZobristKey());
+        Assertions.assertEquals(fen, parsed.toFen());
+        Assertions.assertTrue(parsed.validMoves(ChessPosition.of(5, 5))
+                .contains(new ChessMove(ChessPosition.of(5, 5), ChessPosition.of(6, 4), null)));
+    }
+
+    @Test
+    public void optionalFieldsAndUnbackedState() {
+        // no clocks, a castling right with no rook and an en passant square no pawn
+        // can take on are all accepted, the last two are dropped
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/4P3/8/8/4K2R b KQ e3");
+        Assertions.assertEquals(TeamColor.BLACK, game.getTeamTurn());
+        Assertions.assertEquals("4k3/8/8/8/4P3/8/8/4K2R b K - 0 1", game.toFen());
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getFullmoveNumber());
+
+        Assertions.assertEquals(37, ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - - 37 80").getHalfmoveClock());
+    }
+
+    @Test
+    public void rejectsMalformedRecords() {
+        String[] malformed = { "", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra" };
+        for (String fen : malformed) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(null));
+    }
+}
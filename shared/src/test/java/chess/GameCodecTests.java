@@ -0,0 +1,103 @@
+package chess;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+public class GameCodecTests {
+
+    @Test
+    public void freshGameRoundTrips() {
+        ChessGame game = new ChessGame();
+        byte[] bytes = GameCodec.encode(game);
+        Assertions.assertEquals(49, bytes.length);
+        Assertions.assertTrue(bytes.length * 5 < new Gson().toJson(game).length(), "encoding isn't compact");
+
+        ChessGame decoded = GameCodec.decode(bytes);
+        Assertions.assertEquals(game, decoded);
+        Assertions.assertEquals(game.toFen(), decoded.toFen());
+    }
+
+    @Test
+    public void playedStateRoundTrips() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/1p6/8/P7/R3K2R w KQkq - 0 20");
+        play(game, "a2a4", "e8d8", "e1e2", "d8e8", "e2e1", "e8d8", "e1e2", "d8e8", "e2e1");
+        // black to move with the en passant square gone, and white's king has moved
+        Assertions.assertEquals("r3k2r/8/8/8/Pp6/8/8/R3K2R b - - 8 24", game.toFen());
+        Assertions.assertEquals(2, game.getRepetitionCount());
+
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertEquals(game.toFen(), decoded.toFen());
+        Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        Assertions.assertEquals(2, decoded.getRepetitionCount());
+        play(decoded, "e8d8", "e1e2", "d8e8", "e2e1");
+        Assertions.assertTrue(decoded.isDrawByRepetition());
+
+        ChessGame enPassant = ChessGame.fromFen("4k3/8/8/8/1p6/8/P7/4K3 w - - 0 1");
+        play(enPassant, "a2a4");
+        ChessGame decodedEnPassant = GameCodec.decode(GameCodec.encode(enPassant));
+        Assertions.assertEquals("4k3/8/8/8/Pp6/8/8/4K3 b - a3 0 1", decodedEnPassant.toFen());
+        Assertions.assertTrue(decodedEnPassant.validMoves(ChessPosition.of(4, 2))
+                .contains(new ChessMove(ChessPosition.of(4, 2), ChessPosition.of(3, 1), null)));
+    }
+
+    @Test
+    public void rejectsCorruptBytes() {
+        byte[] bytes = GameCodec.encode(new ChessGame());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[10]));
+
+        byte[] wrongVersion = bytes.clone();
+        wrongVersion[0]++;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(wrongVersion));
+
+        // changing a piece no longer matches the recorded history
+        byte[] changedBoard = bytes.clone();
+        changedBoard[1] ^= 0x01;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(changedBoard));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(truncated));
+    }
+
+    @Test
+    public void unbackedRightsAreDropped() {
+        ChessGame game = ChessGame.fromFen("r3k3/8/8/8/8/8/8/4K2R w Kq - 0 1");
+        byte[] bytes = GameCodec.encode(game);
+        // claim every castle, and an en passant square on d6 with no pawns near it
+        bytes[33] |= ChessBoard.ALL_CASTLING << 1;
+        bytes[34] = (byte) (Bitboards.square(6, 4) + 1);
+
+        ChessGame decoded = GameCodec.decode(bytes);
+        Assertions.assertEquals(game.toFen(), decoded.toFen());
+        Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        Assertions.assertFalse(decoded.validMoves(ChessPosition.of(1, 5))
+                .contains(new ChessMove(ChessPosition.of(1, 5), ChessPosition.of(1, 3), null)));
+    }
+
+    @Test
+    public void longHistoryIsTrimmed() {
+        ChessGame game = new ChessGame();
+        long[] keys = new long[0xFFFF + 10];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        keys[keys.length - 1] = game.getZobristKey();
+        game.setHistory(keys, keys.length);
+
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertEquals(0xFFFF, decoded.historyCount());
+        Assertions.assertEquals(10, decoded.historyKey(0));
+        Assertions.assertEquals(game.getZobristKey(), decoded.historyKey(0xFFFF - 1));
+    }
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(new ChessMove(ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                    ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1), null));
+        }
+    }
+}
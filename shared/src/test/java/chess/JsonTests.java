@@ -0,0 +1,70 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+public class JsonTests {
+
+    private static final Gson GSON = new Gson();
+
+    @Test
+    public void onlyThePositionIsSerialized() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6)));
+
+        JsonObject json = JsonParser.parseString(GSON.toJson(game)).getAsJsonObject();
+        JsonObject board = json.getAsJsonObject("board");
+        for (String derived : new String[] { "colorBitboards", "occupied", "squares", "zobristKey", "materialScore",
+                "pieceSquareScore", "undoStack" }) {
+            Assertions.assertFalse(board.has(derived), derived + " is serialized");
+        }
+        Assertions.assertFalse(json.has("historyCount"));
+        Assertions.assertEquals(2, json.getAsJsonArray("positionHistory").size());
+    }
+
+    @Test
+    public void derivedStateIsRebuilt() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        ChessGame copy = GSON.fromJson(GSON.toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(game, copy);
+        Assertions.assertEquals(game.toFen(), copy.toFen());
+        Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey());
+        Assertions.assertEquals(game.getBoard().materialScore(), copy.getBoard().materialScore());
+        Assertions.assertEquals(game.getBoard().pieceSquareScore(), copy.getBoard().pieceSquareScore());
+        Assertions.assertEquals(48, copy.legalMoves(ChessGame.TeamColor.WHITE).size());
+        Assertions.assertEquals(1, copy.getRepetitionCount());
+    }
+
+    @Test
+    public void inconsistentStateIsCorrected() {
+        // white claims both castles with the queenside rook gone, and the history
+        // doesn't end with this position
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/4K2R w Kkq - 0 1");
+        JsonObject json = JsonParser.parseString(GSON.toJson(game)).getAsJsonObject();
+        json.getAsJsonObject("board").addProperty("castlingRights", ChessBoard.ALL_CASTLING);
+        json.getAsJsonArray("positionHistory").set(0, new JsonPrimitive(42L));
+
+        ChessGame copy = GSON.fromJson(json, ChessGame.class);
+        Assertions.assertEquals(game.toFen(), copy.toFen());
+        Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey());
+        Assertions.assertEquals(1, copy.historyCount());
+        Assertions.assertEquals(copy.getZobristKey(), copy.historyKey(0));
+    }
+
+    @Test
+    public void overlappingPiecesAreRejected() {
+        JsonObject json = JsonParser.parseString(GSON.toJson(new ChessGame())).getAsJsonObject();
+        // a white queen on every white pawn's square
+        json.getAsJsonObject("board").getAsJsonArray("pieceBitboards").set(1,
+                new JsonPrimitive(0xFF00L));
+
+        Assertions.assertThrows(JsonParseException.class, () -> GSON.fromJson(json, ChessGame.class));
+    }
+}
@@ -0,0 +1,88 @@
+package chess;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import chess.ChessGame.TeamColor;
+
+public class LegalMoveCacheTests {
+
+    @Test
+    public void repeatedPositionIsAHit() {
+        LegalMoveCache cache = new LegalMoveCache(64, 4);
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        MoveList scratch = new MoveList();
+
+        LegalMoveCache.Entry first = cache.lookup(board, TeamColor.WHITE, scratch);
+        LegalMoveCache.Entry second = cache.lookup(board.clone(), TeamColor.WHITE, scratch);
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(20, first.moves.length);
+        Assertions.assertEquals(1, cache.hitCount());
+        Assertions.assertEquals(1, cache.missCount());
+        Assertions.assertEquals(0.5, cache.hitRate());
+
+        // the other team in the same placement is a different entry
+        Assertions.assertNotSame(first, cache.lookup(board, TeamColor.BLACK, scratch));
+        Assertions.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void zeroCapacityCachesNothing() {
+        LegalMoveCache cache = new LegalMoveCache(0, 4);
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        MoveList scratch = new MoveList();
+
+        LegalMoveCache.Entry first = cache.lookup(board, TeamColor.WHITE, scratch);
+        Assertions.assertNotSame(first, cache.lookup(board, TeamColor.WHITE, scratch));
+        Assertions.assertEquals(20, first.moves.length);
+        Assertions.assertEquals(0, cache.hitCount());
+        Assertions.assertEquals(2, cache.missCount());
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void sizeStaysWithinCapacity() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(16, 4);
+        MoveList scratch = new MoveList();
+        ChessGame game = new ChessGame();
+        Random random = new Random(13);
+        for (int ply = 0; ply < 60; ply++) {
+            LegalMoveCache.Entry entry = cache.lookup(game.getBoard(), game.getTeamTurn(), scratch);
+            if (!entry.hasMoves()) {
+                break;
+            }
+            game.makeMove(Move.toChessMove(entry.moves[random.nextInt(entry.moves.length)]));
+            Assertions.assertTrue(cache.size() <= 16);
+        }
+        Assertions.assertTrue(cache.evictionCount() > 0);
+    }
+
+    @Test
+    public void cachedStatusMatchesGenerator() throws InvalidMoveException {
+        Random random = new Random(31);
+        MoveList generated = new MoveList();
+        for (int game = 0; game < 20; game++) {
+            ChessGame chessGame = new ChessGame();
+            for (int ply = 0; ply < 100; ply++) {
+                TeamColor turn = chessGame.getTeamTurn();
+                ChessBoard board = chessGame.getBoard();
+                MoveGenerator.generateLegalMoves(board, turn, generated);
+                int kingSquare = board.kingSquare(turn);
+                boolean inCheck = board.isSquareAttacked(kingSquare, Bitboards.opponent(turn));
+
+                Assertions.assertEquals(inCheck, chessGame.isInCheck(turn));
+                Assertions.assertEquals(inCheck && generated.isEmpty(), chessGame.isInCheckmate(turn));
+                Assertions.assertEquals(!inCheck && generated.isEmpty(), chessGame.isInStalemate(turn));
+                Assertions.assertEquals(generated.toChessMoves(), chessGame.legalMoves(turn));
+                if (generated.isEmpty()) {
+                    break;
+                }
+                chessGame.makeMove(Move.toChessMove(generated.get(random.nextInt(generated.size()))));
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package chess;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MagicBitboardsTests {
+
+    private static final int SAMPLES_PER_SQUARE = 2000;
+
+    @Test
+    public void rookAttacksMatchRayWalker() {
+        Random random = new Random(240);
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            for (int i = 0; i < SAMPLES_PER_SQUARE; i++) {
+                long occupied = randomOccupancy(random);
+                Assertions.assertEquals(Bitboards.rookRayAttacks(square, occupied),
+                        MagicBitboards.rookAttacks(square, occupied),
+                        "rook attacks differ on square " + square);
+            }
+        }
+    }
+
+    @Test
+    public void bishopAttacksMatchRayWalker() {
+        Random random = new Random(240);
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            for (int i = 0; i < SAMPLES_PER_SQUARE; i++) {
+                long occupied = randomOccupancy(random);
+                Assertions.assertEquals(Bitboards.bishopRayAttacks(square, occupied),
+                        MagicBitboards.bishopAttacks(square, occupied),
+                        "bishop attacks differ on square " + square);
+            }
+        }
+    }
+
+    @Test
+    public void emptyBoardAttacks() {
+        int d4 = Bitboards.square(4, 4);
+        Assertions.assertEquals(14, Long.bitCount(MagicBitboards.rookAttacks(d4, 0L)));
+        Assertions.assertEquals(13, Long.bitCount(MagicBitboards.bishopAttacks(d4, 0L)));
+        Assertions.assertEquals(27, Long.bitCount(MagicBitboards.queenAttacks(d4, 0L)));
+    }
+
+    private static long randomOccupancy(Random random) {
+        // mix sparse and dense boards
+        return random.nextBoolean() ? random.nextLong() & random.nextLong() : random.nextLong();
+    }
+}
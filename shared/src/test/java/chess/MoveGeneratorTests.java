@@ -0,0 +1,134 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import chess.ChessGame.TeamColor;
+
+public class MoveGeneratorTests {
+
+    private static final int GAMES = 40;
+    private static final int MAX_PLIES = 120;
+
+    @Test
+    public void legalMovesMatchTrialMovesThroughRandomGames() throws InvalidMoveException {
+        Random random = new Random(240);
+        for (int game = 0; game < GAMES; game++) {
+            ChessGame chessGame = new ChessGame();
+            for (int ply = 0; ply < MAX_PLIES; ply++) {
+                TeamColor turn = chessGame.getTeamTurn();
+                Set<ChessMove> expected = movesByTrial(chessGame.getBoard(), turn);
+                List<ChessMove> legalMoves = new ArrayList<>(chessGame.legalMoves(turn));
+
+                Assertions.assertEquals(expected, new HashSet<>(legalMoves), chessGame.getBoard().toString());
+                Assertions.assertEquals(expected.size(), legalMoves.size(), "duplicate moves generated");
+                if (legalMoves.isEmpty()) {
+                    break;
+                }
+                chessGame.makeMove(legalMoves.get(random.nextInt(legalMoves.size())));
+            }
+        }
+    }
+
+    @Test
+    public void encodedMovesCarryFlags() {
+        ChessGame chessGame = new ChessGame();
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(chessGame.getBoard(), TeamColor.WHITE, moves);
+        int doublePushes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            Assertions.assertFalse(Move.isCapture(move));
+            if ((move & Move.DOUBLE_PUSH) != 0) {
+                doublePushes++;
+                Assertions.assertEquals(2 * ChessBoard.BOARD_COLS, Move.to(move) - Move.from(move));
+            }
+            Assertions.assertEquals(move, moves.find(Move.key(move)));
+            Assertions.assertEquals(Move.key(move), Move.fromChessMove(Move.toChessMove(move)));
+        }
+        Assertions.assertEquals(8, doublePushes);
+
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(7, 2), ChessPiece.of(TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(ChessPosition.of(8, 1), ChessPiece.of(TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        MoveGenerator.generateLegalMoves(board, TeamColor.WHITE, moves);
+        Assertions.assertEquals(8, moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            Assertions.assertTrue(Move.isPromotion(move));
+            Assertions.assertEquals(Move.to(move) == Bitboards.square(8, 1), Move.isCapture(move));
+        }
+    }
+
+    @Test
+    public void enPassantCannotExposeKingAlongRow() throws InvalidMoveException {
+        // taking en passant lifts both pawns off row 5, opening the rook's line
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(5, 1), ChessPiece.of(TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(5, 4), ChessPiece.of(TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(ChessPosition.of(7, 5), ChessPiece.of(TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        board.addPiece(ChessPosition.of(5, 8), ChessPiece.of(TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        board.addPiece(ChessPosition.of(8, 8), ChessPiece.of(TeamColor.BLACK, ChessPiece.PieceType.KING));
+        ChessGame chessGame = new ChessGame();
+        chessGame.setBoard(board);
+        chessGame.setTeamTurn(TeamColor.BLACK);
+        chessGame.makeMove(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+
+        ChessMove enPassant = new ChessMove(ChessPosition.of(5, 4), ChessPosition.of(6, 5), null);
+        Assertions.assertFalse(chessGame.legalMoves(TeamColor.WHITE).contains(enPassant));
+        Assertions.assertEquals(movesByTrial(board, TeamColor.WHITE),
+                new HashSet<>(chessGame.legalMoves(TeamColor.WHITE)));
+
+        // without the rook the capture is fine and takes the pawn beside it
+        board.removePiece(ChessPosition.of(5, 8));
+        chessGame.setBoard(board);
+        Assertions.assertTrue(chessGame.legalMoves(TeamColor.WHITE).contains(enPassant));
+        chessGame.makeMove(enPassant);
+        Assertions.assertNull(board.getPiece(ChessPosition.of(5, 5)));
+    }
+
+    @Test
+    public void enPassantOnlyForTheSideToMove() throws InvalidMoveException {
+        ChessGame chessGame = new ChessGame();
+        chessGame.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        chessGame.makeMove(new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(6, 1), null));
+        chessGame.makeMove(new ChessMove(ChessPosition.of(4, 5), ChessPosition.of(5, 5), null));
+        chessGame.makeMove(new ChessMove(ChessPosition.of(7, 4), ChessPosition.of(5, 4), null));
+        ChessMove enPassant = new ChessMove(ChessPosition.of(5, 5), ChessPosition.of(6, 4), null);
+        Assertions.assertTrue(chessGame.validMoves(ChessPosition.of(5, 5)).contains(enPassant));
+
+        // black's pawns beside the square black just skipped have nothing to take
+        for (int col : new int[] { 3, 5 }) {
+            ChessMove capture = new ChessMove(ChessPosition.of(7, col), ChessPosition.of(6, 4), null);
+            Assertions.assertFalse(chessGame.validMoves(ChessPosition.of(7, col)).contains(capture));
+            Assertions.assertFalse(chessGame.legalMoves(TeamColor.BLACK).contains(capture));
+        }
+    }
+
+    /**
+     * Plays out every pseudo-legal move and keeps the ones that leave the king safe
+     */
+    private static Set<ChessMove> movesByTrial(ChessBoard board, TeamColor color) {
+        Set<ChessMove> moves = new HashSet<>();
+        for (ChessPosition position : board.getAllPiecePositions()) {
+            ChessPiece piece = board.getPiece(position);
+            if (piece.getTeamColor() != color) {
+                continue;
+            }
+            for (ChessMove move : piece.pieceMoves(board, position)) {
+                board.makeMove(move);
+                if (!board.isSquareAttacked(board.kingSquare(color), Bitboards.opponent(color))) {
+                    moves.add(move);
+                }
+                board.unmakeMove();
+            }
+        }
+        return moves;
+    }
+}
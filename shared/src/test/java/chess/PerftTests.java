@@ -0,0 +1,90 @@
+package chess;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import chess.ChessGame.TeamColor;
+
+public class PerftTests {
+
+    // published counts from the starting position, en passant first comes up at
+    // depth 5
+    private static final long[] START_POSITION_COUNTS = { 1, 20, 400, 8902, 197281, 4865609 };
+
+    // published counts for kings and rooks alone on their starting squares
+    private static final long[] CASTLING_COUNTS = { 1, 26, 568, 13744 };
+
+    // well known positions that stress castling, en passant, pins and promotions,
+    // with their published counts from depth 1
+    private static final String[] TRICKY_POSITIONS = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8" };
+    private static final long[][] TRICKY_COUNTS = {
+            { 48, 2039, 97862 },
+            { 14, 191, 2812, 43238 },
+            { 6, 264, 9467 },
+            { 44, 1486, 62379 } };
+
+    @Test
+    public void startPositionCounts() {
+        ChessGame game = new ChessGame();
+        for (int depth = 0; depth < START_POSITION_COUNTS.length; depth++) {
+            Assertions.assertEquals(START_POSITION_COUNTS[depth], Perft.perft(game, depth), "depth " + depth);
+        }
+        Assertions.assertEquals(new ChessGame(), game, "perft changed the game");
+    }
+
+    @Test
+    public void castlingPositionCounts() {
+        ChessBoard board = new ChessBoard();
+        for (int row : new int[] { 1, ChessBoard.BOARD_ROWS }) {
+            TeamColor color = row == 1 ? TeamColor.WHITE : TeamColor.BLACK;
+            board.addPiece(ChessPosition.of(row, 1), ChessPiece.of(color, ChessPiece.PieceType.ROOK));
+            board.addPiece(ChessPosition.of(row, 5), ChessPiece.of(color, ChessPiece.PieceType.KING));
+            board.addPiece(ChessPosition.of(row, 8), ChessPiece.of(color, ChessPiece.PieceType.ROOK));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        for (int depth = 0; depth < CASTLING_COUNTS.length; depth++) {
+            Assertions.assertEquals(CASTLING_COUNTS[depth], Perft.perft(game, depth), "depth " + depth);
+        }
+    }
+
+    @Test
+    public void trickyPositionCounts() {
+        for (int i = 0; i < TRICKY_POSITIONS.length; i++) {
+            ChessGame game = ChessGame.fromFen(TRICKY_POSITIONS[i]);
+            for (int depth = 1; depth <= TRICKY_COUNTS[i].length; depth++) {
+                Assertions.assertEquals(TRICKY_COUNTS[i][depth - 1], Perft.perft(game, depth),
+                        TRICKY_POSITIONS[i] + " depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    public void divideSumsToPerft() {
+        ChessGame game = new ChessGame();
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+        Assertions.assertEquals(20, divide.size());
+        Assertions.assertEquals(START_POSITION_COUNTS[3], divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void parallelRunMatchesDivide() {
+        ChessGame game = new ChessGame();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Perft.Result result = Perft.run(game, 4, pool);
+            Assertions.assertEquals(START_POSITION_COUNTS[4], result.nodes());
+            Assertions.assertEquals(Perft.divide(game, 4), result.divide());
+            Assertions.assertTrue(result.nodesPerSecond() > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
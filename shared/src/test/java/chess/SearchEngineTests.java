@@ -0,0 +1,120 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+public class SearchEngineTests {
+
+    @Test
+    public void findsBackRankMate() {
+        ChessBoard board = new ChessBoard();
+        place(board, TeamColor.WHITE, PieceType.KING, 1, 7);
+        place(board, TeamColor.WHITE, PieceType.ROOK, 1, 1);
+        place(board, TeamColor.BLACK, PieceType.KING, 8, 7);
+        for (int col = 6; col <= 8; col++) {
+            place(board, TeamColor.BLACK, PieceType.PAWN, 7, col);
+        }
+        ChessGame game = gameWith(board, TeamColor.WHITE);
+
+        SearchEngine.Result result = new SearchEngine().search(game, 2000);
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1)), result.bestMove());
+        Assertions.assertTrue(result.score() >= SearchEngine.MATE_BOUND);
+        Assertions.assertEquals(game, gameWith(board, TeamColor.WHITE), "search changed the game");
+    }
+
+    @Test
+    public void helperThreadsAgreeWithSingleThread() {
+        // mate in two with the rooks, which has more than one key move, so the
+        // searches are compared by score
+        ChessBoard ladder = new ChessBoard();
+        place(ladder, TeamColor.WHITE, PieceType.KING, 1, 5);
+        place(ladder, TeamColor.WHITE, PieceType.ROOK, 1, 1);
+        place(ladder, TeamColor.WHITE, PieceType.ROOK, 2, 2);
+        place(ladder, TeamColor.BLACK, PieceType.KING, 8, 8);
+        ChessGame mate = gameWith(ladder, TeamColor.WHITE);
+
+        // the knight wins the queen, the only move that doesn't lose material
+        ChessBoard fork = new ChessBoard();
+        place(fork, TeamColor.WHITE, PieceType.KING, 1, 1);
+        place(fork, TeamColor.WHITE, PieceType.KNIGHT, 3, 3);
+        place(fork, TeamColor.BLACK, PieceType.KING, 8, 8);
+        place(fork, TeamColor.BLACK, PieceType.QUEEN, 5, 4);
+        place(fork, TeamColor.BLACK, PieceType.PAWN, 7, 1);
+        ChessGame tactic = gameWith(fork, TeamColor.WHITE);
+
+        SearchEngine single = new SearchEngine();
+        SearchEngine.Result singleMate = single.search(mate, 5000, 4);
+        single.clear();
+        SearchEngine.Result singleTactic = single.search(tactic, 5000, 4);
+        Assertions.assertEquals(SearchEngine.MATE - 3, singleMate.score());
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(3, 3), ChessPosition.of(5, 4)), singleTactic.bestMove());
+
+        try (SearchEngine engine = new SearchEngine(16, 4)) {
+            for (int search = 0; search < 3; search++) {
+                SearchEngine.Result result = engine.search(mate, 5000, 4);
+                Assertions.assertEquals(singleMate.score(), result.score());
+                Assertions.assertEquals(4, result.threads());
+
+                result = engine.search(tactic, 5000, 4);
+                Assertions.assertEquals(singleTactic.bestMove(), result.bestMove());
+                Assertions.assertEquals(singleTactic.score(), result.score());
+                Assertions.assertEquals(4, result.depth());
+                Assertions.assertTrue(result.nodes() > 0);
+            }
+        }
+    }
+
+    @Test
+    public void takesHangingQueen() {
+        ChessBoard board = new ChessBoard();
+        place(board, TeamColor.WHITE, PieceType.KING, 1, 1);
+        place(board, TeamColor.WHITE, PieceType.KNIGHT, 3, 3);
+        place(board, TeamColor.BLACK, PieceType.KING, 8, 8);
+        place(board, TeamColor.BLACK, PieceType.QUEEN, 5, 4);
+        ChessGame game = gameWith(board, TeamColor.WHITE);
+
+        SearchEngine.Result result = new SearchEngine().search(game, 2000, 3);
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(3, 3), ChessPosition.of(5, 4)), result.bestMove());
+        Assertions.assertEquals(3, result.depth());
+    }
+
+    @Test
+    public void noMoveWhenCheckmated() {
+        ChessGame game = new ChessGame();
+        for (String move : new String[] { "f2f3", "e7e5", "g2g4", "d8h4" }) {
+            try {
+                game.makeMove(new ChessMove(ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                        ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1)));
+            } catch (InvalidMoveException ex) {
+                Assertions.fail(ex);
+            }
+        }
+        SearchEngine.Result result = new SearchEngine().search(game, 100);
+        Assertions.assertNull(result.bestMove());
+    }
+
+    @Test
+    public void stopsWithinBudget() {
+        ChessGame game = new ChessGame();
+        SearchEngine.Result result = new SearchEngine().search(game, 200);
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(game.validMoves(result.bestMove().getStartPosition()).contains(result.bestMove()));
+        // allow for the clock only being checked every so many nodes
+        Assertions.assertTrue(result.elapsedMillis() < 1000, "took " + result.elapsedMillis() + "ms");
+        Assertions.assertTrue(result.depth() >= 1);
+    }
+
+    private static void place(ChessBoard board, TeamColor color, PieceType type, int row, int col) {
+        board.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, type));
+    }
+
+    private static ChessGame gameWith(ChessBoard board, TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(board.clone());
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
@@ -0,0 +1,85 @@
+package chess;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTests {
+
+    @Test
+    public void transpositionsShareKey() throws InvalidMoveException {
+        ChessGame knightsFirst = new ChessGame();
+        knightsFirst.makeMove(new ChessMove(ChessPosition.of(1, 2), ChessPosition.of(3, 3)));
+        knightsFirst.makeMove(new ChessMove(ChessPosition.of(8, 2), ChessPosition.of(6, 3)));
+        knightsFirst.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6)));
+
+        ChessGame otherOrder = new ChessGame();
+        otherOrder.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6)));
+        otherOrder.makeMove(new ChessMove(ChessPosition.of(8, 2), ChessPosition.of(6, 3)));
+        otherOrder.makeMove(new ChessMove(ChessPosition.of(1, 2), ChessPosition.of(3, 3)));
+
+        Assertions.assertEquals(knightsFirst, otherOrder);
+        Assertions.assertEquals(knightsFirst.getZobristKey(), otherOrder.getZobristKey());
+    }
+
+    @Test
+    public void equalGamesHashAlikeWithDifferentCastlingRights() throws InvalidMoveException {
+        ChessGame kingMoved = new ChessGame();
+        ChessGame knightsMoved = new ChessGame();
+        String[][] moves = { { "e2e4", "e7e5", "e1e2", "e8e7", "e2e1", "e7e8" },
+                { "e2e4", "e7e5", "g1f3", "g8f6", "f3g1", "f6g8" } };
+        ChessGame[] games = { kingMoved, knightsMoved };
+        for (int i = 0; i < games.length; i++) {
+            for (String move : moves[i]) {
+                games[i].makeMove(new ChessMove(ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                        ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1)));
+            }
+        }
+
+        Assertions.assertEquals(kingMoved, knightsMoved);
+        Assertions.assertNotEquals(kingMoved.getZobristKey(), knightsMoved.getZobristKey());
+        Assertions.assertEquals(kingMoved.hashCode(), knightsMoved.hashCode());
+        Assertions.assertTrue(new HashSet<>(List.of(kingMoved)).contains(knightsMoved));
+    }
+
+    @Test
+    public void keyIncludesSideToMove() {
+        ChessGame white = new ChessGame();
+        ChessGame black = new ChessGame();
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        Assertions.assertEquals(white.getBoard().getZobristKey(), black.getBoard().getZobristKey());
+        Assertions.assertNotEquals(white.getZobristKey(), black.getZobristKey());
+    }
+
+    @Test
+    public void unmakeRestoresKey() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        long startKey = board.getZobristKey();
+
+        board.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5)));
+        Assertions.assertNotEquals(startKey, board.getZobristKey());
+        board.unmakeMove();
+
+        Assertions.assertEquals(startKey, board.getZobristKey());
+    }
+
+    @Test
+    public void incrementalKeyMatchesRebuiltBoard() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        board.movePiece(new ChessMove(ChessPosition.of(1, 4), ChessPosition.of(7, 4)));
+        board.removePiece(ChessPosition.of(2, 1));
+
+        ChessBoard rebuilt = new ChessBoard();
+        for (ChessPosition position : board.getAllPiecePositions()) {
+            rebuilt.addPiece(position, board.getPiece(position));
+        }
+        rebuilt.setCastlingRights(board.castlingRights());
+
+        Assertions.assertEquals(rebuilt.getZobristKey(), board.getZobristKey());
+    }
+}